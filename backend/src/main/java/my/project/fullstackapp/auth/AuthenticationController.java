@@ -1,10 +1,14 @@
 package my.project.fullstackapp.auth;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import my.project.fullstackapp.jwt.JwtUtil;
+import my.project.fullstackapp.security.LoginThrottle;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -14,14 +18,38 @@ import org.springframework.web.bind.annotation.RestController;
 public class AuthenticationController {
 
     private final AuthenticationService authenticationService;
+    private final LoginThrottle loginThrottle;
 
     @PostMapping("login")
-    public ResponseEntity<?> login(@RequestBody AuthenticationRequest request) {
-        AuthenticationResponse response = authenticationService.login(request);
+    public ResponseEntity<?> login(@RequestBody AuthenticationRequest request, HttpServletRequest servletRequest) {
+        loginThrottle.checkOrThrow(request.username(), servletRequest.getRemoteAddr());
+        return withTokens(authenticationService.login(request));
+    }
+
+    @PostMapping("refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshTokenRequest request) {
+        return withTokens(authenticationService.refresh(request));
+    }
+
+    @PostMapping("logout")
+    public ResponseEntity<Void> logout(@RequestBody RefreshTokenRequest request,
+                                       @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false)
+                                       String authorization) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7)
+                : null;
+        authenticationService.logout(request, accessToken);
+        return ResponseEntity.noContent().build();
+    }
+
+    private ResponseEntity<AuthenticationResponse> withTokens(AuthenticationResponse response) {
         return ResponseEntity.ok()
                 .header(
                         HttpHeaders.AUTHORIZATION,
                         response.token())
+                .header(
+                        JwtUtil.REFRESH_TOKEN_HEADER,
+                        response.refreshToken())
                 .body(response);
     }
 }
@@ -4,6 +4,7 @@ import my.project.fullstackapp.customer.CustomerDTO;
 
 public record AuthenticationResponse (
         String token,
+        String refreshToken,
         CustomerDTO customerDTO
 ) {
 }
@@ -1,22 +1,36 @@
 package my.project.fullstackapp.auth;
 
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
-import my.project.fullstackapp.customer.Customer;
 import my.project.fullstackapp.customer.CustomerDTO;
-import my.project.fullstackapp.customer.CustomerDTOMapper;
+import my.project.fullstackapp.customer.CustomerPrincipal;
+import my.project.fullstackapp.jwt.JwtProperties;
 import my.project.fullstackapp.jwt.JwtUtil;
+import my.project.fullstackapp.jwt.TokenRevocationList;
+import my.project.fullstackapp.jwt.TokenType;
+import my.project.fullstackapp.jwt.VerifiedToken;
+import org.springframework.context.MessageSource;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.Locale;
+
 @Service
 @RequiredArgsConstructor
 public class AuthenticationService {
 
     private final AuthenticationManager authenticationManager;
-    private final CustomerDTOMapper customerDTOMapper;
     private final JwtUtil jwtUtil;
+    private final JwtProperties jwtProperties;
+    private final TokenRevocationList tokenRevocationList;
+    private final UserDetailsService userDetailsService;
+    private final MessageSource messageSource;
 
     public AuthenticationResponse login(AuthenticationRequest request) {
         Authentication authentication = authenticationManager.authenticate(
@@ -25,10 +39,73 @@ public class AuthenticationService {
                         request.password()
                 )
         );
-        Customer principal = (Customer) authentication.getPrincipal();
-        CustomerDTO customerDTO = customerDTOMapper.apply(principal);
+        CustomerDTO customerDTO = ((CustomerPrincipal) authentication.getPrincipal()).customer();
         String token = jwtUtil.issueToken(customerDTO.email(), customerDTO.roles());
+        String refreshToken = jwtUtil.issueRefreshToken(customerDTO.email());
+
+        return new AuthenticationResponse(token, refreshToken, customerDTO);
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token of the same family.
+     * Each refresh token is accepted once; presenting a rotated one again means it leaked, so the
+     * whole family is revoked.
+     */
+    public AuthenticationResponse refresh(RefreshTokenRequest request) {
+        VerifiedToken refreshToken = verifyRefreshToken(request.refreshToken());
+        if (!tokenRevocationList.revoke(refreshToken.id(), refreshToken.expiresAt())) {
+            revokeFamily(refreshToken);
+            throw invalidRefreshToken();
+        }
+
+        CustomerDTO customerDTO;
+        try {
+            customerDTO = ((CustomerPrincipal) userDetailsService.loadUserByUsername(refreshToken.subject())).customer();
+        } catch (UsernameNotFoundException e) {
+            throw invalidRefreshToken();
+        }
+        String token = jwtUtil.issueToken(customerDTO.email(), customerDTO.roles());
+        String rotatedRefreshToken = jwtUtil.issueRefreshToken(customerDTO.email(), refreshToken.family());
+
+        return new AuthenticationResponse(token, rotatedRefreshToken, customerDTO);
+    }
+
+    public void logout(RefreshTokenRequest request, String accessToken) {
+        revokeFamily(verifyRefreshToken(request.refreshToken()));
+        if (accessToken != null) {
+            try {
+                VerifiedToken verifiedToken = jwtUtil.verify(accessToken);
+                if (verifiedToken.type() == TokenType.ACCESS && verifiedToken.id() != null) {
+                    tokenRevocationList.revoke(verifiedToken.id(), verifiedToken.expiresAt());
+                }
+            } catch (JwtException e) {
+                // an expired or invalid access token needs no revocation
+            }
+        }
+    }
+
+    private VerifiedToken verifyRefreshToken(String refreshToken) {
+        VerifiedToken verifiedToken;
+        try {
+            verifiedToken = jwtUtil.verify(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw invalidRefreshToken();
+        }
+        if (verifiedToken.type() != TokenType.REFRESH || verifiedToken.id() == null
+                || tokenRevocationList.isRevoked(verifiedToken.family())) {
+            throw invalidRefreshToken();
+        }
+        return verifiedToken;
+    }
+
+    // rotated tokens of the family can be issued until now, so the family outlives all of them
+    private void revokeFamily(VerifiedToken refreshToken) {
+        tokenRevocationList.revoke(refreshToken.family(),
+                Instant.now().plus(jwtProperties.getRefreshTokenLifetime()));
+    }
 
-        return new AuthenticationResponse(token, customerDTO);
+    private BadCredentialsException invalidRefreshToken() {
+        return new BadCredentialsException(messageSource.getMessage(
+                "exception.authentication.invalidRefreshToken", null, Locale.getDefault()));
     }
 }
@@ -0,0 +1,6 @@
+package my.project.fullstackapp.auth;
+
+public record RefreshTokenRequest(
+        String refreshToken
+) {
+}
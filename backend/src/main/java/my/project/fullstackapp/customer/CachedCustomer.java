@@ -0,0 +1,16 @@
+package my.project.fullstackapp.customer;
+
+import java.time.Instant;
+
+public record CachedCustomer(
+        CustomerDTO customer,
+        CustomerVersion version
+) {
+
+    // the constructor expression of CustomerRepository.findCachedCustomerById, a cache miss costs one row
+    public CachedCustomer(Integer id, String name, String email, Integer age, Gender gender, String profileImage,
+                          Long version, Instant lastModified) {
+        this(new CustomerDTO(id, name, email, age, gender, profileImage),
+                new CustomerVersion(id, version, lastModified));
+    }
+}
@@ -1,24 +1,29 @@
 package my.project.fullstackapp.customer;
 
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 
 @Data
 @RequiredArgsConstructor
-@AllArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "customer_name_id_idx", columnList = "name, id"),
+        @Index(name = "customer_age_id_idx", columnList = "age, id"),
+        @Index(name = "customer_gender_age_id_idx", columnList = "gender, age, id")
+})
 public class Customer implements UserDetails {
 
     @Id
-    @SequenceGenerator(name = "customer_id_sequence", sequenceName = "customer_id_sequence", allocationSize = 1)
+    @SequenceGenerator(name = "customer_id_sequence", sequenceName = "customer_id_sequence", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_id_sequence")
     private Integer id;
 
@@ -41,6 +46,27 @@ public class Customer implements UserDetails {
     @Column(unique = true)
     private String profileImage;
 
+    private String profileImagePath;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    @UpdateTimestamp
+    @Column(nullable = false, columnDefinition = "timestamp(6) with time zone default now()")
+    private Instant lastModified;
+
+    public Customer(Integer id, String name, String email, String password, Integer age, Gender gender,
+                    String profileImage) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.password = password;
+        this.age = age;
+        this.gender = gender;
+        this.profileImage = profileImage;
+    }
+
     public Customer(Integer id, String name, String email, String password, Integer age, Gender gender) {
         this.id = id;
         this.name = name;
@@ -0,0 +1,9 @@
+package my.project.fullstackapp.customer;
+
+public record CustomerBulkResult(
+        Integer id,
+        String email,
+        CustomerBulkStatus status,
+        String message
+) {
+}
@@ -0,0 +1,11 @@
+package my.project.fullstackapp.customer;
+
+public enum CustomerBulkStatus {
+    CREATED,
+    UPDATED,
+    DELETED,
+    NOT_FOUND,
+    CONFLICT,
+    INVALID,
+    UNAVAILABLE
+}
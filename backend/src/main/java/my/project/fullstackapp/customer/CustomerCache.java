@@ -0,0 +1,92 @@
+package my.project.fullstackapp.customer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+@Component
+public class CustomerCache {
+
+    private static final String CACHE_NAME = "customers";
+
+    private final Cache<Integer, CachedCustomer> nearCache;
+    private final CustomerCacheTier secondTier;
+    private final Counter secondTierHits;
+    private final Counter secondTierMisses;
+
+    public CustomerCache(CustomerCacheProperties customerCacheProperties,
+                         Optional<CustomerCacheTier> secondTier,
+                         MeterRegistry meterRegistry) {
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(customerCacheProperties.getMaximumSize())
+                .expireAfterWrite(customerCacheProperties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        this.secondTier = secondTier.orElse(null);
+        this.secondTierHits = secondTierCounter(meterRegistry, "hit");
+        this.secondTierMisses = secondTierCounter(meterRegistry, "miss");
+        CaffeineCacheMetrics.monitor(meterRegistry, nearCache, CACHE_NAME);
+    }
+
+    public Optional<CachedCustomer> get(Integer customerId, Function<Integer, Optional<CachedCustomer>> loader) {
+        return Optional.ofNullable(nearCache.get(customerId, id -> load(id, loader)));
+    }
+
+    public void evict(Integer customerId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvict(customerId);
+                }
+            });
+        } else {
+            doEvict(customerId);
+        }
+    }
+
+    private CachedCustomer load(Integer customerId, Function<Integer, Optional<CachedCustomer>> loader) {
+        if (secondTier != null) {
+            Optional<CachedCustomer> cached = secondTier.get(customerId);
+            if (cached.isPresent()) {
+                secondTierHits.increment();
+                return cached.get();
+            }
+            secondTierMisses.increment();
+        }
+
+        Optional<CachedCustomer> loaded = loader.apply(customerId);
+        if (secondTier != null) {
+            loaded.ifPresent(cachedCustomer -> secondTier.put(customerId, cachedCustomer));
+        }
+        return loaded.orElse(null);
+    }
+
+    /*
+     * Invalidating the near cache waits for an in-flight load of the id, which may still write the
+     * previous row to the second tier, so the tier is evicted only after that. A load that read the
+     * tier in between is dropped by the second invalidation.
+     */
+    private void doEvict(Integer customerId) {
+        nearCache.invalidate(customerId);
+        if (secondTier != null) {
+            secondTier.evict(customerId);
+            nearCache.invalidate(customerId);
+        }
+    }
+
+    private static Counter secondTierCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cache.second.tier.gets")
+                .tag("cache", CACHE_NAME)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,24 @@
+package my.project.fullstackapp.customer;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "customer-cache")
+@Getter
+@Setter
+public class CustomerCacheProperties {
+
+    private long maximumSize = 10_000;
+    // also how long other instances may serve a customer after it changed, see CustomerCacheTier
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+    private String secondTier;
+    private long secondTierMaximumSize = 100_000;
+    private Duration secondTierExpireAfterWrite = Duration.ofHours(1);
+    private long principalMaximumSize = 10_000;
+    private Duration principalExpireAfterWrite = Duration.ofMinutes(5);
+}
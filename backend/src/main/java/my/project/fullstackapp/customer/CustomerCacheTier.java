@@ -0,0 +1,21 @@
+package my.project.fullstackapp.customer;
+
+import java.util.Optional;
+
+/*
+ * Shared cache behind the per-instance near cache, so warm entries survive restarts and are
+ * visible to every instance. Implementations must tolerate being unavailable: get returns empty.
+ *
+ * An eviction removes the entry from this tier and from the near cache of the instance that wrote,
+ * not from the near caches of the other instances. Those keep serving the previous customer and its
+ * ETag until customer-cache.expire-after-write, so with several instances keep that short or have
+ * the implementation broadcast evictions and invalidate the near caches itself.
+ */
+public interface CustomerCacheTier {
+
+    Optional<CachedCustomer> get(Integer customerId);
+
+    void put(Integer customerId, CachedCustomer cachedCustomer);
+
+    void evict(Integer customerId);
+}
@@ -1,48 +1,153 @@
 package my.project.fullstackapp.customer;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import my.project.fullstackapp.filestorage.ProfileImageType;
 import my.project.fullstackapp.jwt.JwtUtil;
+import my.project.fullstackapp.security.LoginThrottle;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("api/v1/customers")
 public class CustomerController {
 
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final String X_CONTENT_TYPE_OPTIONS = "X-Content-Type-Options";
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
     private final CustomerService customerService;
+    private final CustomerExportService customerExportService;
     private final JwtUtil jwtUtil;
+    private final LoginThrottle loginThrottle;
 
     @GetMapping
-    public ResponseEntity<List<CustomerDTO>> getAllCustomers() {
-        List<CustomerDTO> allCustomers = customerService.getAllCustomers();
+    public ResponseEntity<MappingJacksonValue> getCustomers(@RequestParam(value = "sort", defaultValue = "id") String sort,
+                                                            @RequestParam(value = "direction", defaultValue = "asc") String direction,
+                                                            @RequestParam(value = "limit", required = false) Integer limit,
+                                                            @RequestParam(value = "cursor", required = false) String cursor,
+                                                            @RequestParam(value = "fields", required = false) String fields,
+                                                            WebRequest webRequest) {
+        CustomerPageRequest pageRequest =
+                customerService.getPageRequest(CustomerSearchRequest.ALL, sort, direction, limit, cursor, fields);
+        return getCustomerPage(pageRequest, webRequest);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<MappingJacksonValue> searchCustomers(CustomerSearchRequest customerSearchRequest,
+                                                               @RequestParam(value = "sort", defaultValue = "id") String sort,
+                                                               @RequestParam(value = "direction", defaultValue = "asc") String direction,
+                                                               @RequestParam(value = "limit", required = false) Integer limit,
+                                                               @RequestParam(value = "cursor", required = false) String cursor,
+                                                               @RequestParam(value = "fields", required = false) String fields,
+                                                               WebRequest webRequest) {
+        CustomerPageRequest pageRequest =
+                customerService.getPageRequest(customerSearchRequest, sort, direction, limit, cursor, fields);
+        return getCustomerPage(pageRequest, webRequest);
+    }
+
+    private ResponseEntity<MappingJacksonValue> getCustomerPage(CustomerPageRequest pageRequest, WebRequest webRequest) {
+        // only revalidation pays for the version query, a full response takes its ETag from the page it returns;
+        // checkNotModified also writes its ETag to the response, so it is only called when that ETag matches
+        String ifNoneMatch = webRequest.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            String eTag = customerService.getCustomersETag(pageRequest);
+            if (ifNoneMatch.contains("\"" + eTag + "\"") && webRequest.checkNotModified(eTag)) {
+                return null;
+            }
+        }
+        VersionedCustomerPage customerPage = customerService.getCustomers(pageRequest);
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(allCustomers);
+                .eTag(customerPage.eTag())
+                .body(withFields(customerPage.page(), pageRequest.fields()));
+    }
+
+    private MappingJacksonValue withFields(Object body, Set<CustomerField> fields) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(CustomerField.filterProvider(fields));
+        return value;
+    }
+
+    @GetMapping("/export")
+    public void exportCustomers(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                @RequestParam(value = "fields", required = false) String fields,
+                                HttpServletResponse response) throws IOException {
+        CustomerExportFormat exportFormat = customerExportService.getExportFormat(format);
+        Set<CustomerField> customerFields = customerService.getFields(fields);
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("customers." + exportFormat.name().toLowerCase())
+                .build()
+                .toString());
+        customerExportService.exportCustomers(exportFormat, customerFields, response.getOutputStream());
     }
 
     @PostMapping
-    public ResponseEntity<?> registerCustomer(@RequestBody CustomerRegistrationRequest customerRegistrationRequest) {
+    public ResponseEntity<?> registerCustomer(@RequestBody CustomerRegistrationRequest customerRegistrationRequest,
+                                              HttpServletRequest servletRequest) {
+        loginThrottle.checkOrThrow(customerRegistrationRequest.email(), servletRequest.getRemoteAddr());
         customerService.createCustomer(customerRegistrationRequest);
         String jwtToken = jwtUtil.issueToken(customerRegistrationRequest.email(), "ROLE_USER");
+        String refreshToken = jwtUtil.issueRefreshToken(customerRegistrationRequest.email());
         return ResponseEntity
                 .status(HttpStatus.OK)
                 .header(HttpHeaders.AUTHORIZATION, jwtToken)
+                .header(JwtUtil.REFRESH_TOKEN_HEADER, refreshToken)
                 .build();
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<List<CustomerBulkResult>> registerCustomers(
+            @RequestBody List<CustomerRegistrationRequest> customerRegistrationRequests) {
+        List<CustomerBulkResult> results = customerService.createCustomers(customerRegistrationRequests);
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(results);
+    }
+
     @GetMapping("/{customerId}")
-    public ResponseEntity<CustomerDTO> getCustomer(@PathVariable("customerId") Integer customerId) {
-        CustomerDTO customerDTO = customerService.getCustomer(customerId);
+    public ResponseEntity<MappingJacksonValue> getCustomer(@PathVariable("customerId") Integer customerId,
+                                                           @RequestParam(value = "fields", required = false) String fields,
+                                                           WebRequest webRequest) {
+        Set<CustomerField> customerFields = customerService.getFields(fields);
+        CachedCustomer cachedCustomer = customerService.getCachedCustomer(customerId);
+        CustomerVersion customerVersion = cachedCustomer.version();
+        String eTag = customerVersion.eTag(customerFields);
+        if (webRequest.checkNotModified(eTag, customerVersion.lastModified().toEpochMilli())) {
+            return null;
+        }
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(customerDTO);
+                .eTag(eTag)
+                .lastModified(customerVersion.lastModified())
+                .body(withFields(cachedCustomer.customer(), customerFields));
     }
 
     @PutMapping("/{customerId}")
@@ -54,6 +159,23 @@ public class CustomerController {
                 .build();
     }
 
+    @PutMapping("/bulk")
+    public ResponseEntity<List<CustomerBulkResult>> updateCustomers(
+            @RequestBody Map<Integer, CustomerUpdateRequest> customerUpdateRequests) {
+        List<CustomerBulkResult> results = customerService.updateCustomers(customerUpdateRequests);
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(results);
+    }
+
+    @DeleteMapping
+    public ResponseEntity<List<CustomerBulkResult>> deleteCustomers(@RequestParam("ids") List<Integer> customerIds) {
+        List<CustomerBulkResult> results = customerService.deleteCustomers(customerIds);
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(results);
+    }
+
     @DeleteMapping("/{customerId}")
     public ResponseEntity<?> deleteCustomer(@PathVariable("customerId") Integer customerId) {
         customerService.deleteCustomer(customerId);
@@ -71,11 +193,61 @@ public class CustomerController {
                 .build();
     }
 
-    @GetMapping(value = "/{customerId}/profile-image", produces = MediaType.IMAGE_JPEG_VALUE)
-    public ResponseEntity<byte[]> getCustomerProfileImage(@PathVariable("customerId") Integer customerId) {
-        byte[] customerProfileImage = customerService.getCustomerProfileImage(customerId);
-        return ResponseEntity
+    @GetMapping({"/{customerId}/profile-image", "/{customerId}/profile-image/{version}"})
+    public ResponseEntity<Resource> getCustomerProfileImage(@PathVariable("customerId") Integer customerId,
+                                                            @PathVariable(value = "version", required = false) String version,
+                                                            @RequestParam(value = "size", required = false) Integer size,
+                                                            @RequestHeader HttpHeaders requestHeaders,
+                                                            HttpServletRequest servletRequest,
+                                                            WebRequest webRequest) throws IOException {
+        CustomerProfileImage profileImage = customerService.getCustomerProfileImage(customerId);
+        String currentVersion = profileImage.version();
+        if (version != null && !version.equals(currentVersion)) {
+            return ResponseEntity
+                    .status(HttpStatus.FOUND)
+                    .location(URI.create(size == null ? profileImage.url() : profileImage.url() + "?size=" + size))
+                    .build();
+        }
+        Integer thumbnailSize = customerService.getProfileImageThumbnailSize(size);
+        if (webRequest.checkNotModified(thumbnailSize == null ? currentVersion : currentVersion + "-" + thumbnailSize)) {
+            return null;
+        }
+
+        // until the thumbnail is written the original is served, and not cached as the thumbnail
+        Optional<Resource> thumbnail = thumbnailSize == null ? Optional.empty()
+                : customerService.getCustomerProfileImageThumbnail(profileImage, thumbnailSize);
+        boolean complete = thumbnailSize == null || thumbnail.isPresent();
+        Resource customerProfileImage = thumbnail.orElseGet(() -> customerService.getCustomerProfileImage(profileImage));
+        ResponseEntity.BodyBuilder response = ResponseEntity
                 .status(HttpStatus.OK)
-                .body(customerProfileImage);
+                .eTag(thumbnail.isPresent() ? currentVersion + "-" + thumbnailSize : currentVersion)
+                .cacheControl(version != null && complete ? IMMUTABLE : CacheControl.noCache())
+                // the extension of a stored image is canonical, never the uploader's
+                .contentType(ProfileImageType.fromFileName(customerProfileImage.getFilename())
+                        .map(ProfileImageType::getMediaType)
+                        .orElse(MediaType.APPLICATION_OCTET_STREAM))
+                .header(X_CONTENT_TYPE_OPTIONS, "nosniff");
+
+        // Range requests are answered by Spring MVC as 206 with the requested ResourceRegion
+        if (requestHeaders.getRange().isEmpty() && sendfile(servletRequest, customerProfileImage)) {
+            return response
+                    .contentLength(customerProfileImage.contentLength())
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .build();
+        }
+        return response.body(customerProfileImage);
+    }
+
+    // hands the whole file to the container, Tomcat NIO writes it with FileChannel.transferTo
+    private boolean sendfile(HttpServletRequest servletRequest, Resource resource) throws IOException {
+        if (!HttpMethod.GET.matches(servletRequest.getMethod())
+                || !Boolean.TRUE.equals(servletRequest.getAttribute(SENDFILE_SUPPORT))
+                || !resource.isFile()) {
+            return false;
+        }
+        servletRequest.setAttribute(SENDFILE_FILENAME, resource.getFile().getCanonicalPath());
+        servletRequest.setAttribute(SENDFILE_START, 0L);
+        servletRequest.setAttribute(SENDFILE_END, resource.contentLength());
+        return true;
     }
 }
@@ -0,0 +1,34 @@
+package my.project.fullstackapp.customer;
+
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public record CustomerCursor(
+        CustomerSort sort,
+        Sort.Direction direction,
+        Comparable<?> key,
+        Integer id
+) {
+
+    public static CustomerCursor after(CustomerDTO customerDTO, CustomerSort sort, Sort.Direction direction) {
+        return new CustomerCursor(sort, direction, sort.getKeyExtractor().apply(customerDTO), customerDTO.id());
+    }
+
+    public String encode() {
+        String raw = String.join(":", sort.name(), direction.name(), id.toString(), key.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CustomerCursor decode(String encoded, CustomerSort sort, Sort.Direction direction) {
+        String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+        String[] parts = raw.split(":", 4);
+        if (parts.length != 4
+                || CustomerSort.valueOf(parts[0]) != sort
+                || Sort.Direction.valueOf(parts[1]) != direction) {
+            throw new IllegalArgumentException("Cursor does not match the requested ordering");
+        }
+        return new CustomerCursor(sort, direction, sort.getKeyParser().apply(parts[3]), Integer.valueOf(parts[2]));
+    }
+}
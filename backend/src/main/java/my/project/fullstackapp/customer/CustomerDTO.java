@@ -1,7 +1,10 @@
 package my.project.fullstackapp.customer;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+
 import java.util.List;
 
+@JsonFilter(CustomerDTO.FIELDS_FILTER)
 public record CustomerDTO (
         Integer id,
         String name,
@@ -12,4 +15,11 @@ public record CustomerDTO (
         List<String> roles
 ) {
 
+    public static final String FIELDS_FILTER = "customerFields";
+
+    private static final List<String> DEFAULT_ROLES = List.of("ROLE_USER");
+
+    public CustomerDTO(Integer id, String name, String email, Integer age, Gender gender, String profileImage) {
+        this(id, name, email, age, gender, profileImage, DEFAULT_ROLES);
+    }
 }
\ No newline at end of file
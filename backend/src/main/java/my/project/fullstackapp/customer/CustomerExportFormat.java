@@ -0,0 +1,22 @@
+package my.project.fullstackapp.customer;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum CustomerExportFormat {
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private final String contentType;
+
+    public static CustomerExportFormat fromParameter(String parameter) {
+        for (CustomerExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(parameter)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown export format: " + parameter);
+    }
+}
@@ -0,0 +1,140 @@
+package my.project.fullstackapp.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import my.project.fullstackapp.exception.RequestValidationException;
+import org.springframework.context.MessageSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class CustomerExportService {
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String SELECT_CUSTOMERS = "SELECT %s FROM customer ORDER BY id";
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CustomerDTOMapper customerDTOMapper;
+    private final ObjectMapper objectMapper;
+    private final MessageSource messageSource;
+
+    public CustomerExportFormat getExportFormat(String parameter) {
+        try {
+            return CustomerExportFormat.fromParameter(parameter);
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException(messageSource.getMessage(
+                    "exception.customer.invalidExportFormat", null, Locale.getDefault()));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportCustomers(CustomerExportFormat format, Set<CustomerField> fields,
+                                OutputStream outputStream) throws IOException {
+        BufferedOutputStream out = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+        ObjectWriter writer = objectMapper.writerFor(CustomerDTO.class)
+                .with(CustomerField.filterProvider(fields));
+
+        if (format == CustomerExportFormat.CSV) {
+            out.write((CustomerField.toParameter(fields) + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        String select = SELECT_CUSTOMERS.formatted(fields.stream()
+                .filter(CustomerField::isSelectable)
+                .map(CustomerField::getColumn)
+                .collect(Collectors.joining(", ")));
+        jdbcTemplate.query(connection -> selectCustomers(connection, select), (RowCallbackHandler) resultSet -> {
+            CustomerDTO customerDTO = customerDTOMapper.apply(toCustomer(resultSet, fields));
+            try {
+                if (format == CustomerExportFormat.CSV) {
+                    out.write(toCsvLine(customerDTO, fields).getBytes(StandardCharsets.UTF_8));
+                } else {
+                    out.write(writer.writeValueAsBytes(customerDTO));
+                    out.write('\n');
+                }
+                if (resultSet.getRow() % FETCH_SIZE == 0) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        out.flush();
+    }
+
+    private PreparedStatement selectCustomers(Connection connection, String select) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(
+                select, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(FETCH_SIZE);
+        return statement;
+    }
+
+    private Customer toCustomer(ResultSet resultSet, Set<CustomerField> fields) throws SQLException {
+        String gender = column(resultSet, fields, CustomerField.GENDER, String.class);
+        return new Customer(
+                resultSet.getInt(CustomerField.ID.getColumn()),
+                column(resultSet, fields, CustomerField.NAME, String.class),
+                column(resultSet, fields, CustomerField.EMAIL, String.class),
+                null,
+                column(resultSet, fields, CustomerField.AGE, Integer.class),
+                gender == null ? null : Gender.valueOf(gender),
+                column(resultSet, fields, CustomerField.PROFILE_IMAGE, String.class)
+        );
+    }
+
+    private <T> T column(ResultSet resultSet, Set<CustomerField> fields, CustomerField field, Class<T> type)
+            throws SQLException {
+        return fields.contains(field) ? resultSet.getObject(field.getColumn(), type) : null;
+    }
+
+    static String toCsvLine(CustomerDTO customerDTO, Set<CustomerField> fields) {
+        return fields.stream()
+                .map(field -> toCsvField(customerDTO, field))
+                .collect(Collectors.joining(",")) + "\n";
+    }
+
+    private static String toCsvField(CustomerDTO customerDTO, CustomerField field) {
+        Object value = field.getValueExtractor().apply(customerDTO);
+        if (value instanceof List<?> values) {
+            return toCsvField(values.stream().map(String::valueOf).collect(Collectors.joining(";")));
+        }
+        if (value instanceof Number number) {
+            return String.valueOf(number);
+        }
+        return toCsvField(value == null ? null : String.valueOf(value));
+    }
+
+    // a spreadsheet runs a cell starting with a formula character, the quote makes it plain text
+    private static String toCsvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
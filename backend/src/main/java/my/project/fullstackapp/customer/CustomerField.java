@@ -0,0 +1,68 @@
+package my.project.fullstackapp.customer;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Getter
+@RequiredArgsConstructor
+public enum CustomerField {
+    ID("id", "id", CustomerDTO::id),
+    NAME("name", "name", CustomerDTO::name),
+    EMAIL("email", "email", CustomerDTO::email),
+    AGE("age", "age", CustomerDTO::age),
+    GENDER("gender", "gender", CustomerDTO::gender),
+    PROFILE_IMAGE("profileImage", "profile_image", CustomerDTO::profileImage),
+    ROLES("roles", null, CustomerDTO::roles);
+
+    public static final Set<CustomerField> ALL = Collections.unmodifiableSet(EnumSet.allOf(CustomerField.class));
+
+    private final String property;
+    private final String column;
+    private final Function<CustomerDTO, Object> valueExtractor;
+
+    public boolean isSelectable() {
+        return column != null;
+    }
+
+    public static CustomerField fromProperty(String property) {
+        for (CustomerField field : values()) {
+            if (field.property.equalsIgnoreCase(property)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown field: " + property);
+    }
+
+    public static Set<CustomerField> fromParameter(String parameter) {
+        if (StringUtils.isBlank(parameter)) {
+            return ALL;
+        }
+        EnumSet<CustomerField> fields = EnumSet.of(ID);
+        for (String property : parameter.split(",")) {
+            fields.add(fromProperty(property.trim()));
+        }
+        return Collections.unmodifiableSet(fields);
+    }
+
+    public static String toParameter(Set<CustomerField> fields) {
+        return fields.stream()
+                .map(CustomerField::getProperty)
+                .collect(Collectors.joining(","));
+    }
+
+    public static FilterProvider filterProvider(Set<CustomerField> fields) {
+        return new SimpleFilterProvider().addFilter(CustomerDTO.FIELDS_FILTER,
+                SimpleBeanPropertyFilter.filterOutAllExcept(
+                        fields.stream().map(CustomerField::getProperty).collect(Collectors.toSet())));
+    }
+}
@@ -0,0 +1,9 @@
+package my.project.fullstackapp.customer;
+
+import java.util.List;
+
+public record CustomerPage(
+        List<CustomerDTO> customers,
+        String next
+) {
+}
@@ -0,0 +1,15 @@
+package my.project.fullstackapp.customer;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Set;
+
+public record CustomerPageRequest(
+        CustomerSearchRequest search,
+        CustomerSort sort,
+        Sort.Direction direction,
+        CustomerCursor cursor,
+        int limit,
+        Set<CustomerField> fields
+) {
+}
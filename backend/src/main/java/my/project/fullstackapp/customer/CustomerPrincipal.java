@@ -0,0 +1,69 @@
+package my.project.fullstackapp.customer;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+
+/*
+ * Immutable snapshot of a customer for authentication. The principal cache hands one instance to
+ * every thread, so it is never a managed entity and a new password means a new snapshot.
+ */
+public record CustomerPrincipal(
+        CustomerDTO customer,
+        String password
+) implements UserDetails {
+
+    public CustomerPrincipal(Integer id, String name, String email, Integer age, Gender gender, String profileImage,
+                             String password) {
+        this(new CustomerDTO(id, name, email, age, gender, profileImage), password);
+    }
+
+    public CustomerPrincipal withPassword(String newPassword) {
+        return new CustomerPrincipal(customer, newPassword);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return customer.roles().stream()
+                .map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return customer.email();
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    // keeps the hash out of logs and exception messages
+    @Override
+    public String toString() {
+        return "CustomerPrincipal[customer=" + customer + "]";
+    }
+}
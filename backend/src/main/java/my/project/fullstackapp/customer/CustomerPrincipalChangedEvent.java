@@ -0,0 +1,10 @@
+package my.project.fullstackapp.customer;
+
+/**
+ * Published when tokens issued for {@code username} may no longer describe a valid principal,
+ * e.g. because the customer changed their email or was deleted.
+ */
+public record CustomerPrincipalChangedEvent(
+        String username
+) {
+}
@@ -0,0 +1,17 @@
+package my.project.fullstackapp.customer;
+
+import org.apache.commons.lang3.StringUtils;
+
+/*
+ * The stored file and the URL that names it, read from the same row so the version served never
+ * belongs to another upload than the bytes.
+ */
+public record CustomerProfileImage(
+        String path,
+        String url
+) {
+
+    public String version() {
+        return StringUtils.substringAfterLast(url, "/");
+    }
+}
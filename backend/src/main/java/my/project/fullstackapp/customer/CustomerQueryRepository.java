@@ -0,0 +1,18 @@
+package my.project.fullstackapp.customer;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Set;
+
+public interface CustomerQueryRepository {
+
+    List<CustomerDTO> findCustomersPage(CustomerSearchRequest search, CustomerSort sort, Sort.Direction direction,
+                                        CustomerCursor cursor, int limit, Set<CustomerField> fields);
+
+    List<CachedCustomer> findVersionedCustomersPage(CustomerSearchRequest search, CustomerSort sort, Sort.Direction direction,
+                                                    CustomerCursor cursor, int limit, Set<CustomerField> fields);
+
+    List<CustomerVersion> findCustomerVersionsPage(CustomerSearchRequest search, CustomerSort sort, Sort.Direction direction,
+                                                   CustomerCursor cursor, int limit);
+}
@@ -0,0 +1,176 @@
+package my.project.fullstackapp.customer;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.Sort;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+class CustomerQueryRepositoryImpl implements CustomerQueryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<CustomerDTO> findCustomersPage(CustomerSearchRequest search, CustomerSort sort, Sort.Direction direction,
+                                               CustomerCursor cursor, int limit, Set<CustomerField> fields) {
+        return findVersionedCustomersPage(search, sort, direction, cursor, limit, fields).stream()
+                .map(CachedCustomer::customer)
+                .toList();
+    }
+
+    @Override
+    public List<CachedCustomer> findVersionedCustomersPage(CustomerSearchRequest search, CustomerSort sort,
+                                                           Sort.Direction direction, CustomerCursor cursor, int limit,
+                                                           Set<CustomerField> fields) {
+        // id and the sort key are always read, the cursor of the next page is built from them
+        EnumSet<CustomerField> selected = EnumSet.copyOf(fields);
+        selected.add(CustomerField.ID);
+        selected.add(CustomerField.fromProperty(sort.getAttribute()));
+        selected.removeIf(field -> !field.isSelectable());
+
+        return findPage(Tuple.class, (criteriaBuilder, customer) -> criteriaBuilder.tuple(Stream.concat(
+                                        selected.stream().map(field -> customer.get(field.getProperty())
+                                                .alias(field.getProperty())),
+                                        Stream.of(customer.get("version").alias("version"),
+                                                customer.get("lastModified").alias("lastModified")))
+                                .toArray(Selection<?>[]::new)),
+                        search, sort, direction, cursor, limit)
+                .stream()
+                .map(tuple -> new CachedCustomer(toCustomerDTO(tuple, selected), new CustomerVersion(
+                        tuple.get(CustomerField.ID.getProperty(), Integer.class),
+                        tuple.get("version", Long.class),
+                        tuple.get("lastModified", Instant.class))))
+                .toList();
+    }
+
+    @Override
+    public List<CustomerVersion> findCustomerVersionsPage(CustomerSearchRequest search, CustomerSort sort,
+                                                          Sort.Direction direction, CustomerCursor cursor, int limit) {
+        return findPage(CustomerVersion.class, (criteriaBuilder, customer) -> criteriaBuilder.construct(CustomerVersion.class,
+                        customer.get("id"),
+                        customer.get("version"),
+                        customer.get("lastModified")),
+                search, sort, direction, cursor, limit);
+    }
+
+    private <T> List<T> findPage(Class<T> resultType,
+                                 BiFunction<CriteriaBuilder, Root<Customer>, Selection<T>> selection,
+                                 CustomerSearchRequest search, CustomerSort sort, Sort.Direction direction,
+                                 CustomerCursor cursor, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = criteriaBuilder.createQuery(resultType);
+        Root<Customer> customer = query.from(Customer.class);
+
+        query.select(selection.apply(criteriaBuilder, customer));
+
+        List<Predicate> predicates = searchPredicates(criteriaBuilder, customer, search);
+        if (cursor != null) {
+            predicates.add(keysetPredicate(criteriaBuilder, customer, sort, direction, cursor));
+        }
+        query.where(predicates.toArray(Predicate[]::new));
+        query.orderBy(orderBy(criteriaBuilder, customer, sort, direction));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private CustomerDTO toCustomerDTO(Tuple tuple, Set<CustomerField> selected) {
+        return new CustomerDTO(
+                tuple.get(CustomerField.ID.getProperty(), Integer.class),
+                value(tuple, selected, CustomerField.NAME, String.class),
+                value(tuple, selected, CustomerField.EMAIL, String.class),
+                value(tuple, selected, CustomerField.AGE, Integer.class),
+                value(tuple, selected, CustomerField.GENDER, Gender.class),
+                value(tuple, selected, CustomerField.PROFILE_IMAGE, String.class)
+        );
+    }
+
+    private <T> T value(Tuple tuple, Set<CustomerField> selected, CustomerField field, Class<T> type) {
+        return selected.contains(field) ? tuple.get(field.getProperty(), type) : null;
+    }
+
+    private List<Predicate> searchPredicates(CriteriaBuilder criteriaBuilder, Root<Customer> customer,
+                                             CustomerSearchRequest search) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (StringUtils.isNotBlank(search.name())) {
+            predicates.add(startsWith(criteriaBuilder, customer.get("name"), search.name()));
+        }
+        if (StringUtils.isNotBlank(search.email())) {
+            predicates.add(startsWith(criteriaBuilder, customer.get("email"), search.email()));
+        }
+        if (search.minAge() != null) {
+            predicates.add(criteriaBuilder.greaterThanOrEqualTo(customer.get("age"), search.minAge()));
+        }
+        if (search.maxAge() != null) {
+            predicates.add(criteriaBuilder.lessThanOrEqualTo(customer.get("age"), search.maxAge()));
+        }
+        if (search.gender() != null) {
+            predicates.add(criteriaBuilder.equal(customer.get("gender"), search.gender()));
+        }
+        return predicates;
+    }
+
+    // matches the lower(...) text_pattern_ops indexes created in db/schema.sql
+    private Predicate startsWith(CriteriaBuilder criteriaBuilder, Path<String> attribute, String prefix) {
+        String pattern = prefix.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        return criteriaBuilder.like(criteriaBuilder.lower(attribute), pattern, '\\');
+    }
+
+    private List<Order> orderBy(CriteriaBuilder criteriaBuilder, Root<Customer> customer,
+                                CustomerSort sort, Sort.Direction direction) {
+        Path<?> key = customer.get(sort.getAttribute());
+        Path<?> id = customer.get("id");
+        if (sort == CustomerSort.ID) {
+            return List.of(direction.isAscending() ? criteriaBuilder.asc(id) : criteriaBuilder.desc(id));
+        }
+        return direction.isAscending()
+                ? List.of(criteriaBuilder.asc(key), criteriaBuilder.asc(id))
+                : List.of(criteriaBuilder.desc(key), criteriaBuilder.desc(id));
+    }
+
+    /*
+     * Expands (key, id) > (:key, :id) into a form Hibernate can render while keeping
+     * the leading range condition on the indexed sort column, so Postgres can start the
+     * index scan at the cursor instead of filtering from the beginning of the table.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate keysetPredicate(CriteriaBuilder criteriaBuilder, Root<Customer> customer,
+                                      CustomerSort sort, Sort.Direction direction, CustomerCursor cursor) {
+        Path<Integer> id = customer.get("id");
+        if (sort == CustomerSort.ID) {
+            return direction.isAscending()
+                    ? criteriaBuilder.greaterThan(id, cursor.id())
+                    : criteriaBuilder.lessThan(id, cursor.id());
+        }
+
+        Path<Comparable> key = customer.get(sort.getAttribute());
+        Comparable value = cursor.key();
+        if (direction.isAscending()) {
+            return criteriaBuilder.and(
+                    criteriaBuilder.greaterThanOrEqualTo(key, value),
+                    criteriaBuilder.or(
+                            criteriaBuilder.greaterThan(key, value),
+                            criteriaBuilder.greaterThan(id, cursor.id())));
+        }
+        return criteriaBuilder.and(
+                criteriaBuilder.lessThanOrEqualTo(key, value),
+                criteriaBuilder.or(
+                        criteriaBuilder.lessThan(key, value),
+                        criteriaBuilder.lessThan(id, cursor.id())));
+    }
+}
@@ -1,16 +1,68 @@
 package my.project.fullstackapp.customer;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
-public interface CustomerRepository extends JpaRepository<Customer, Integer> {
+public interface CustomerRepository extends JpaRepository<Customer, Integer>, CustomerQueryRepository {
 
     boolean existsCustomerByEmail(String email);
 
     boolean existsCustomerById(Integer customerId);
 
     Optional<Customer> findCustomerByEmail(String email);
+
+    @Query("""
+            SELECT new my.project.fullstackapp.customer.CustomerPrincipal(
+                    c.id, c.name, c.email, c.age, c.gender, c.profileImage, c.password)
+            FROM Customer c
+            WHERE c.email = :email
+            """)
+    Optional<CustomerPrincipal> findCustomerPrincipalByEmail(@Param("email") String email);
+
+    @Query("SELECT c.email FROM Customer c WHERE c.email IN :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Query("""
+            SELECT new my.project.fullstackapp.customer.CustomerDTO(c.id, c.name, c.email, c.age, c.gender, c.profileImage)
+            FROM Customer c
+            WHERE c.id IN :customerIds
+            """)
+    List<CustomerDTO> findCustomerDTOsByIds(@Param("customerIds") Collection<Integer> customerIds);
+
+    @Query("""
+            SELECT new my.project.fullstackapp.customer.CustomerDTO(c.id, c.name, c.email, c.age, c.gender, c.profileImage)
+            FROM Customer c
+            WHERE c.id = :customerId
+            """)
+    Optional<CustomerDTO> findCustomerDTOById(@Param("customerId") Integer customerId);
+
+    @Query("""
+            SELECT new my.project.fullstackapp.customer.CachedCustomer(
+                    c.id, c.name, c.email, c.age, c.gender, c.profileImage, c.version, c.lastModified)
+            FROM Customer c
+            WHERE c.id = :customerId
+            """)
+    Optional<CachedCustomer> findCachedCustomerById(@Param("customerId") Integer customerId);
+
+    @Query("""
+            SELECT new my.project.fullstackapp.customer.CustomerProfileImage(c.profileImagePath, c.profileImage)
+            FROM Customer c
+            WHERE c.id = :customerId AND c.profileImagePath IS NOT NULL AND c.profileImage IS NOT NULL
+            """)
+    Optional<CustomerProfileImage> findProfileImageById(@Param("customerId") Integer customerId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Customer c SET c.password = :password WHERE c.email = :email")
+    int updatePasswordByEmail(@Param("email") String email, @Param("password") String password);
 }
@@ -0,0 +1,12 @@
+package my.project.fullstackapp.customer;
+
+public record CustomerSearchRequest(
+        String name,
+        String email,
+        Integer minAge,
+        Integer maxAge,
+        Gender gender
+) {
+
+    public static final CustomerSearchRequest ALL = new CustomerSearchRequest(null, null, null, null, null);
+}
@@ -4,50 +4,138 @@ import lombok.RequiredArgsConstructor;
 import my.project.fullstackapp.exception.DuplicateResourceException;
 import my.project.fullstackapp.exception.RequestValidationException;
 import my.project.fullstackapp.exception.ResourceNotFoundException;
+import my.project.fullstackapp.exception.ServiceUnavailableException;
 import my.project.fullstackapp.filestorage.FileStorageService;
+import my.project.fullstackapp.filestorage.ProfileImageType;
+import my.project.fullstackapp.filestorage.StoredFile;
+import my.project.fullstackapp.security.BoundedPasswordEncoder;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class CustomerService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_BULK_SIZE = 1000;
+    private static final String UNIQUE_VIOLATION = "23505";
+    // versioned by content hash, a new upload gets a new URL so responses can be cached as immutable
+    private static final String PROFILE_IMAGE_URL = "/api/v1/customers/%s/profile-image/%s";
+
     private final CustomerRepository customerRepository;
-    private final CustomerDTOMapper customerDTOMapper;
-    private final PasswordEncoder passwordEncoder;
+    private final BoundedPasswordEncoder passwordEncoder;
     private final FileStorageService fileStorageService;
     private final MessageSource messageSource;
+    private final CustomerCache customerCache;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public List<CustomerDTO> getAllCustomers() {
-        return customerRepository.findAll()
-                .stream()
-                .map(customerDTOMapper)
-                .collect(Collectors.toList());
+    public CustomerPageRequest getPageRequest(CustomerSearchRequest search, String sortParameter,
+                                              String directionParameter, Integer limit, String cursor,
+                                              String fieldsParameter) {
+        Set<CustomerField> fields = getFields(fieldsParameter);
+        if (search.minAge() != null && search.maxAge() != null && search.minAge() > search.maxAge()) {
+            throw new RequestValidationException(messageSource.getMessage(
+                    "exception.customer.invalidSearchRequest", null, Locale.getDefault()));
+        }
+
+        try {
+            CustomerSort sort = CustomerSort.fromParameter(sortParameter);
+            Sort.Direction direction = Sort.Direction.fromString(directionParameter);
+            CustomerCursor after = cursor == null ? null : CustomerCursor.decode(cursor, sort, direction);
+            int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            return new CustomerPageRequest(search, sort, direction, after, pageSize, fields);
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException(messageSource.getMessage(
+                    "exception.customer.invalidPageRequest", null, Locale.getDefault()));
+        }
+    }
+
+    public Set<CustomerField> getFields(String parameter) {
+        try {
+            return CustomerField.fromParameter(parameter);
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException(messageSource.getMessage(
+                    "exception.customer.invalidFields", null, Locale.getDefault()));
+        }
+    }
+
+    // the ETag comes from the rows of the body, including the one read ahead for the next cursor
+    public VersionedCustomerPage getCustomers(CustomerPageRequest pageRequest) {
+        int pageSize = pageRequest.limit();
+        List<CachedCustomer> customers = customerRepository.findVersionedCustomersPage(pageRequest.search(),
+                pageRequest.sort(), pageRequest.direction(), pageRequest.cursor(), pageSize + 1, pageRequest.fields());
+        String eTag = eTag(customers.stream().map(CachedCustomer::version), pageRequest.fields());
+
+        if (customers.size() <= pageSize) {
+            return new VersionedCustomerPage(new CustomerPage(toCustomerDTOs(customers), null), eTag);
+        }
+        List<CustomerDTO> page = toCustomerDTOs(customers.subList(0, pageSize));
+        return new VersionedCustomerPage(new CustomerPage(page,
+                CustomerCursor.after(page.get(pageSize - 1), pageRequest.sort(), pageRequest.direction()).encode()),
+                eTag);
+    }
+
+    // reads only the versions, for revalidating a page the client already has
+    public String getCustomersETag(CustomerPageRequest pageRequest) {
+        return eTag(customerRepository.findCustomerVersionsPage(pageRequest.search(), pageRequest.sort(),
+                        pageRequest.direction(), pageRequest.cursor(), pageRequest.limit() + 1).stream(),
+                pageRequest.fields());
+    }
+
+    private static String eTag(Stream<CustomerVersion> versions, Set<CustomerField> fields) {
+        String representation = versions.map(CustomerVersion::eTag).collect(Collectors.joining(","))
+                + ";" + CustomerField.toParameter(fields);
+        return DigestUtils.md5DigestAsHex(representation.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<CustomerDTO> toCustomerDTOs(List<CachedCustomer> customers) {
+        return customers.stream()
+                .map(CachedCustomer::customer)
+                .toList();
     }
 
     public CustomerDTO getCustomer(Integer customerId) {
-        return customerRepository.findById(customerId)
-                .map(customerDTOMapper)
+        return getCachedCustomer(customerId).customer();
+    }
+
+    // the validators and the body of one response come from the same entry
+    public CachedCustomer getCachedCustomer(Integer customerId) {
+        return customerCache.get(customerId, customerRepository::findCachedCustomerById)
                 .orElseThrow(() -> new ResourceNotFoundException(messageSource.getMessage(
                         "exception.customer.notFound", null, Locale.getDefault())));
     }
 
     public void createCustomer(CustomerRegistrationRequest customerRegistrationRequest) {
-        if (customerRepository.existsCustomerByEmail(customerRegistrationRequest.email())) {
-            throw new DuplicateResourceException(messageSource.getMessage(
-                    "exception.authentication.emailAlreadyExists", null, Locale.getDefault()));
-        }
-
         Customer customer = new Customer(
                 customerRegistrationRequest.name(),
                 customerRegistrationRequest.email(),
@@ -56,25 +144,206 @@ public class CustomerService {
                 customerRegistrationRequest.gender()
         );
 
-        customerRepository.save(customer);
+        writeOrThrowDuplicate(() -> customerRepository.saveAndFlush(customer));
+    }
+
+    // not transactional: no pooled connection is held while the passwords are hashed
+    public List<CustomerBulkResult> createCustomers(List<CustomerRegistrationRequest> customerRegistrationRequests) {
+        checkBulkSizeOrThrow(customerRegistrationRequests.size());
+
+        Set<String> emails = customerRegistrationRequests.stream()
+                .map(CustomerRegistrationRequest::email)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> takenEmails = emails.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(customerRepository.findExistingEmails(emails));
+
+        CustomerBulkResult[] results = new CustomerBulkResult[customerRegistrationRequests.size()];
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < customerRegistrationRequests.size(); i++) {
+            CustomerRegistrationRequest request = customerRegistrationRequests.get(i);
+            if (StringUtils.isAnyBlank(request.name(), request.email(), request.password())
+                    || request.age() == null || request.gender() == null) {
+                results[i] = new CustomerBulkResult(null, request.email(), CustomerBulkStatus.INVALID,
+                        messageSource.getMessage("exception.customer.invalidRegistration", null, Locale.getDefault()));
+            } else if (!takenEmails.add(request.email())) {
+                results[i] = new CustomerBulkResult(null, request.email(), CustomerBulkStatus.CONFLICT,
+                        messageSource.getMessage("exception.authentication.emailAlreadyExists", null, Locale.getDefault()));
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        List<CompletableFuture<String>> passwords = passwordEncoder.encodeAll(accepted.stream()
+                .map(i -> customerRegistrationRequests.get(i).password())
+                .toList());
+        Map<Integer, String> hashed = new LinkedHashMap<>();
+        for (int i = 0; i < accepted.size(); i++) {
+            try {
+                hashed.put(accepted.get(i), passwords.get(i).join());
+            } catch (CompletionException e) {
+                if (!(e.getCause() instanceof ServiceUnavailableException unavailable)) {
+                    throw e;
+                }
+                // the hashing pool is full, the client retries just these
+                results[accepted.get(i)] = new CustomerBulkResult(null,
+                        customerRegistrationRequests.get(accepted.get(i)).email(),
+                        CustomerBulkStatus.UNAVAILABLE, unavailable.getMessage());
+            }
+        }
+
+        insertCustomers(customerRegistrationRequests, hashed, results);
+        return List.of(results);
     }
 
+    @Transactional
     public void updateCustomer(Integer customerId, CustomerUpdateRequest customerUpdateRequest) {
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException(messageSource.getMessage(
                         "exception.customer.notFound", null, Locale.getDefault())));
 
+        String previousEmail = customer.getEmail();
+        if (!applyChanges(customer, customerUpdateRequest)) {
+            throw new RequestValidationException(messageSource.getMessage(
+                    "exception.customer.noChanges", null, Locale.getDefault()));
+        }
+
+        writeOrThrowDuplicate(() -> customerRepository.saveAndFlush(customer));
+        customerCache.evict(customerId);
+        publishChange(previousEmail, customer);
+    }
+
+    @Transactional
+    public List<CustomerBulkResult> updateCustomers(Map<Integer, CustomerUpdateRequest> customerUpdateRequests) {
+        checkBulkSizeOrThrow(customerUpdateRequests.size());
+
+        Map<Integer, Customer> customers = customerRepository.findAllById(customerUpdateRequests.keySet())
+                .stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        Set<String> emails = customerUpdateRequests.values().stream()
+                .map(CustomerUpdateRequest::email)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> takenEmails = emails.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(customerRepository.findExistingEmails(emails));
+
+        List<CustomerBulkResult> results = new ArrayList<>();
+        customerUpdateRequests.forEach((customerId, customerUpdateRequest) -> {
+            Customer customer = customers.get(customerId);
+            if (customer == null) {
+                results.add(new CustomerBulkResult(customerId, customerUpdateRequest.email(), CustomerBulkStatus.NOT_FOUND,
+                        messageSource.getMessage("exception.customer.notFound", null, Locale.getDefault())));
+            } else if (isEmailChange(customer, customerUpdateRequest) && !takenEmails.add(customerUpdateRequest.email())) {
+                results.add(new CustomerBulkResult(customerId, customerUpdateRequest.email(), CustomerBulkStatus.CONFLICT,
+                        messageSource.getMessage("exception.authentication.emailAlreadyExists", null, Locale.getDefault())));
+            } else {
+                String previousEmail = customer.getEmail();
+                if (!applyChanges(customer, customerUpdateRequest)) {
+                    results.add(new CustomerBulkResult(customerId, customer.getEmail(), CustomerBulkStatus.INVALID,
+                            messageSource.getMessage("exception.customer.noChanges", null, Locale.getDefault())));
+                    return;
+                }
+                customerCache.evict(customerId);
+                publishChange(previousEmail, customer);
+                results.add(new CustomerBulkResult(customerId, customer.getEmail(), CustomerBulkStatus.UPDATED, null));
+            }
+        });
+
+        writeOrThrowDuplicate(customerRepository::flush);
+        return results;
+    }
+
+    /*
+     * Relies on the unique index on email instead of checking for the email first, which took an
+     * extra round trip and still let concurrent requests with the same email race past the check.
+     */
+    /*
+     * Each attempt is one repository transaction. A unique violation means another request committed
+     * one of the emails after the check; those items are reported as CONFLICT and the rest is inserted
+     * again, so every retry has at least one item less.
+     */
+    private void insertCustomers(List<CustomerRegistrationRequest> customerRegistrationRequests,
+                                 Map<Integer, String> hashed, CustomerBulkResult[] results) {
+        while (!hashed.isEmpty()) {
+            List<Customer> customers = hashed.entrySet().stream()
+                    .map(entry -> {
+                        CustomerRegistrationRequest request = customerRegistrationRequests.get(entry.getKey());
+                        return new Customer(request.name(), request.email(), entry.getValue(),
+                                request.age(), request.gender());
+                    })
+                    .toList();
+            try {
+                customerRepository.saveAllAndFlush(customers);
+            } catch (DataIntegrityViolationException e) {
+                if (!isUniqueViolation(e)) {
+                    throw e;
+                }
+                Set<String> takenEmails = customerRepository.findExistingEmails(customers.stream()
+                        .map(Customer::getEmail)
+                        .toList());
+                if (takenEmails.isEmpty()) {
+                    throw e;
+                }
+                hashed.keySet().removeIf(i -> {
+                    String email = customerRegistrationRequests.get(i).email();
+                    if (!takenEmails.contains(email)) {
+                        return false;
+                    }
+                    results[i] = new CustomerBulkResult(null, email, CustomerBulkStatus.CONFLICT,
+                            messageSource.getMessage("exception.authentication.emailAlreadyExists", null,
+                                    Locale.getDefault()));
+                    return true;
+                });
+                continue;
+            }
+
+            int i = 0;
+            for (Integer index : hashed.keySet()) {
+                Customer customer = customers.get(i++);
+                results[index] = new CustomerBulkResult(
+                        customer.getId(), customer.getEmail(), CustomerBulkStatus.CREATED, null);
+            }
+            return;
+        }
+    }
+
+    private void writeOrThrowDuplicate(Runnable write) {
+        try {
+            write.run();
+        } catch (DataIntegrityViolationException e) {
+            if (isUniqueViolation(e)) {
+                throw new DuplicateResourceException(messageSource.getMessage(
+                        "exception.authentication.emailAlreadyExists", null, Locale.getDefault()));
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isUniqueViolation(DataIntegrityViolationException e) {
+        return e.getMostSpecificCause() instanceof SQLException sqlException
+                && UNIQUE_VIOLATION.equals(sqlException.getSQLState());
+    }
+
+    private void publishChange(String previousEmail, Customer customer) {
+        eventPublisher.publishEvent(previousEmail.equals(customer.getEmail())
+                ? new CustomerUpdatedEvent(previousEmail)
+                : new CustomerPrincipalChangedEvent(previousEmail));
+    }
+
+    private boolean isEmailChange(Customer customer, CustomerUpdateRequest customerUpdateRequest) {
+        return customerUpdateRequest.email() != null && !customerUpdateRequest.email().equals(customer.getEmail());
+    }
+
+    private boolean applyChanges(Customer customer, CustomerUpdateRequest customerUpdateRequest) {
         boolean changes = false;
 
         if (customerUpdateRequest.name() != null && !customerUpdateRequest.name().equals(customer.getName())) {
             customer.setName(customerUpdateRequest.name());
             changes = true;
         }
-        if (customerUpdateRequest.email() != null && !customerUpdateRequest.email().equals(customer.getEmail())) {
-            if (customerRepository.existsCustomerByEmail(customerUpdateRequest.email())) {
-                throw new DuplicateResourceException(messageSource.getMessage(
-                        "exception.authentication.emailAlreadyExists", null, Locale.getDefault()));
-            }
+        if (isEmailChange(customer, customerUpdateRequest)) {
             customer.setEmail(customerUpdateRequest.email());
             changes = true;
         }
@@ -87,35 +356,67 @@ public class CustomerService {
             changes = true;
         }
 
-        if (!changes) {
-            throw new RequestValidationException(messageSource.getMessage(
-                    "exception.customer.noChanges", null, Locale.getDefault()));
-        }
-
-        customerRepository.save(customer);
+        return changes;
     }
 
     public void deleteCustomer(Integer customerId) {
-        checkIfCustomerExistsOrThrow(customerId);
+        CustomerDTO customer = customerRepository.findCustomerDTOById(customerId)
+                .orElseThrow(() -> new ResourceNotFoundException(messageSource.getMessage(
+                        "exception.customer.notFound", null, Locale.getDefault())));
         customerRepository.deleteById(customerId);
+        customerCache.evict(customerId);
+        eventPublisher.publishEvent(new CustomerPrincipalChangedEvent(customer.email()));
     }
 
-    private void checkIfCustomerExistsOrThrow(Integer customerId) {
-        if (!customerRepository.existsCustomerById(customerId)) {
-            throw new ResourceNotFoundException(messageSource.getMessage(
-                    "exception.customer.notFound", null, Locale.getDefault()));
+    @Transactional
+    public List<CustomerBulkResult> deleteCustomers(List<Integer> customerIds) {
+        checkBulkSizeOrThrow(customerIds.size());
+
+        Set<Integer> ids = new LinkedHashSet<>(customerIds);
+        Map<Integer, String> existing = ids.isEmpty() ? Map.of() : customerRepository.findCustomerDTOsByIds(ids)
+                .stream()
+                .collect(Collectors.toMap(CustomerDTO::id, CustomerDTO::email));
+        Set<Integer> existingIds = existing.keySet();
+        if (!existingIds.isEmpty()) {
+            customerRepository.deleteAllByIdInBatch(existingIds);
+            existing.forEach((customerId, email) -> {
+                customerCache.evict(customerId);
+                eventPublisher.publishEvent(new CustomerPrincipalChangedEvent(email));
+            });
         }
-    }
 
-    public byte[] getCustomerProfileImage(Integer customerId) {
-        CustomerDTO customerDTO = getCustomer(customerId);
+        return ids.stream()
+                .map(customerId -> existingIds.contains(customerId)
+                        ? new CustomerBulkResult(customerId, null, CustomerBulkStatus.DELETED, null)
+                        : new CustomerBulkResult(customerId, null, CustomerBulkStatus.NOT_FOUND,
+                        messageSource.getMessage("exception.customer.notFound", null, Locale.getDefault())))
+                .toList();
+    }
 
-        if (StringUtils.isBlank(customerDTO.profileImage())) {
-            throw new ResourceNotFoundException(messageSource.getMessage(
-                    "exception.customer.profileImage.notFound", null, Locale.getDefault()));
+    private void checkBulkSizeOrThrow(int size) {
+        if (size > MAX_BULK_SIZE) {
+            throw new RequestValidationException(messageSource.getMessage(
+                    "exception.customer.bulkLimitExceeded", new Object[]{String.valueOf(MAX_BULK_SIZE)},
+                    Locale.getDefault()));
         }
+    }
 
-        return fileStorageService.getProfileImage(customerDTO.profileImage());
+    public CustomerProfileImage getCustomerProfileImage(Integer customerId) {
+        return customerRepository.findProfileImageById(customerId)
+                .orElseThrow(() -> new ResourceNotFoundException(messageSource.getMessage(
+                        "exception.customer.profileImage.notFound", null, Locale.getDefault())));
+    }
+
+    public Resource getCustomerProfileImage(CustomerProfileImage profileImage) {
+        return fileStorageService.getProfileImage(profileImage.path());
+    }
+
+    public Integer getProfileImageThumbnailSize(Integer requestedSize) {
+        return fileStorageService.getProfileImageThumbnailSize(requestedSize);
+    }
+
+    public Optional<Resource> getCustomerProfileImageThumbnail(CustomerProfileImage profileImage, int size) {
+        return fileStorageService.getProfileImageThumbnail(profileImage.path(), profileImage.version(), size);
     }
 
     public void updateCustomerProfileImage(Integer customerId, MultipartFile file) {
@@ -123,27 +424,31 @@ public class CustomerService {
                 .orElseThrow(() -> new ResourceNotFoundException(messageSource.getMessage(
                         "exception.customer.notFound", null, Locale.getDefault())));
 
-        try {
-            deleteCustomerProfileImage(customer);
-            String profileImage = fileStorageService.putProfileImage(customerId, file.getBytes(), file.getOriginalFilename());
-            customer.setProfileImage(profileImage);
+        if (StringUtils.isBlank(StringUtils.substringAfterLast(file.getOriginalFilename(), "."))) {
+            throw new RequestValidationException(messageSource.getMessage(
+                    "exception.customer.profileImage.missingExtension", null, Locale.getDefault()));
+        }
+
+        String oldProfileImagePath = customer.getProfileImagePath();
+        try (InputStream fileStream = new BufferedInputStream(file.getInputStream())) {
+            ProfileImageType type = ProfileImageType.detect(fileStream)
+                    .orElseThrow(() -> new RequestValidationException(messageSource.getMessage(
+                            "exception.customer.profileImage.unsupportedType", null, Locale.getDefault())));
+            StoredFile profileImage = fileStorageService.putProfileImage(customerId, fileStream, type);
+            customer.setProfileImagePath(profileImage.path());
+            customer.setProfileImage(PROFILE_IMAGE_URL.formatted(customerId, profileImage.contentHash()));
         } catch (IOException e) {
             throw new RuntimeException(messageSource.getMessage(
                     "exception.customer.profileImage.notUploaded", null, Locale.getDefault()), e);
         }
 
         customerRepository.save(customer);
-    }
+        customerCache.evict(customerId);
+        eventPublisher.publishEvent(new CustomerUpdatedEvent(customer.getEmail()));
 
-    void deleteCustomerProfileImage(Customer customer) {
-        if (customer.getProfileImage() != null) {
-            try {
-                Path oldCustomerProfileImage = Path.of(customer.getProfileImage());
-                Files.delete(oldCustomerProfileImage);
-                customer.setProfileImage(null);
-            } catch (IOException e) {
-                throw new RuntimeException("File not found");
-            }
+        // names are content hashes, so the old URL never serves other bytes; the same name is the same upload
+        if (oldProfileImagePath != null && !oldProfileImagePath.equals(customer.getProfileImagePath())) {
+            fileStorageService.deleteProfileImage(oldProfileImagePath);
         }
     }
 }
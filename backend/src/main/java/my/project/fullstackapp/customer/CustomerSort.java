@@ -0,0 +1,27 @@
+package my.project.fullstackapp.customer;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.function.Function;
+
+@Getter
+@RequiredArgsConstructor
+public enum CustomerSort {
+    ID("id", CustomerDTO::id, Integer::valueOf),
+    NAME("name", CustomerDTO::name, String::valueOf),
+    AGE("age", CustomerDTO::age, Integer::valueOf);
+
+    private final String attribute;
+    private final Function<CustomerDTO, Comparable<?>> keyExtractor;
+    private final Function<String, Comparable<?>> keyParser;
+
+    public static CustomerSort fromParameter(String parameter) {
+        for (CustomerSort sort : values()) {
+            if (sort.attribute.equalsIgnoreCase(parameter)) {
+                return sort;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sort: " + parameter);
+    }
+}
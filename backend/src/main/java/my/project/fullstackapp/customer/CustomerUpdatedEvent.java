@@ -0,0 +1,10 @@
+package my.project.fullstackapp.customer;
+
+/**
+ * Published when customer data changed without affecting who {@code username} is,
+ * e.g. a new name or profile image.
+ */
+public record CustomerUpdatedEvent(
+        String username
+) {
+}
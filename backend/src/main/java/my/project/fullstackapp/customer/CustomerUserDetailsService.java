@@ -1,25 +1,72 @@
 package my.project.fullstackapp.customer;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.context.MessageSource;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.util.Locale;
 
 @Service
-@RequiredArgsConstructor
-public class CustomerUserDetailsService implements UserDetailsService {
+public class CustomerUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+    private static final String CACHE_NAME = "principals";
 
     private final CustomerRepository customerRepository;
     private final MessageSource messageSource;
+    // loads are single-flight per email; unknown emails are not cached
+    private final LoadingCache<String, CustomerPrincipal> principals;
+
+    public CustomerUserDetailsService(CustomerRepository customerRepository,
+                                      MessageSource messageSource,
+                                      CustomerCacheProperties customerCacheProperties,
+                                      MeterRegistry meterRegistry) {
+        this.customerRepository = customerRepository;
+        this.messageSource = messageSource;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(customerCacheProperties.getPrincipalMaximumSize())
+                .expireAfterWrite(customerCacheProperties.getPrincipalExpireAfterWrite())
+                .recordStats()
+                .build(email -> customerRepository.findCustomerPrincipalByEmail(email).orElse(null));
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, CACHE_NAME);
+    }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return customerRepository.findCustomerByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException(messageSource.getMessage(
-                        "exception.authentication.usernameNotFound", null, Locale.getDefault())));
+        CustomerPrincipal principal = principals.get(username);
+        if (principal == null) {
+            throw new UsernameNotFoundException(messageSource.getMessage(
+                    "exception.authentication.usernameNotFound", null, Locale.getDefault()));
+        }
+        return principal;
+    }
+
+    // called by DaoAuthenticationProvider after a successful login with an outdated hash
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        customerRepository.updatePasswordByEmail(user.getUsername(), newPassword);
+        evict(user.getUsername());
+        return ((CustomerPrincipal) user).withPassword(newPassword);
+    }
+
+    public void evict(String username) {
+        principals.invalidate(username);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerPrincipalChanged(CustomerPrincipalChangedEvent event) {
+        evict(event.username());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerUpdated(CustomerUpdatedEvent event) {
+        evict(event.username());
     }
 }
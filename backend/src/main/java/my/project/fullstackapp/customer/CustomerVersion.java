@@ -0,0 +1,19 @@
+package my.project.fullstackapp.customer;
+
+import java.time.Instant;
+import java.util.Set;
+
+public record CustomerVersion(
+        Integer id,
+        Long version,
+        Instant lastModified
+) {
+
+    public String eTag() {
+        return id + "-" + version;
+    }
+
+    public String eTag(Set<CustomerField> fields) {
+        return fields.equals(CustomerField.ALL) ? eTag() : eTag() + "-" + CustomerField.toParameter(fields);
+    }
+}
@@ -0,0 +1,45 @@
+package my.project.fullstackapp.customer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "customer-cache.second-tier", havingValue = "in-memory")
+public class InMemoryCustomerCacheTier implements CustomerCacheTier {
+
+    private final Cache<Integer, CachedCustomer> entries;
+
+    @Autowired
+    public InMemoryCustomerCacheTier(CustomerCacheProperties customerCacheProperties) {
+        this(customerCacheProperties, Ticker.systemTicker());
+    }
+
+    InMemoryCustomerCacheTier(CustomerCacheProperties customerCacheProperties, Ticker ticker) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(customerCacheProperties.getSecondTierMaximumSize())
+                .expireAfterWrite(customerCacheProperties.getSecondTierExpireAfterWrite())
+                .ticker(ticker)
+                .build();
+    }
+
+    @Override
+    public Optional<CachedCustomer> get(Integer customerId) {
+        return Optional.ofNullable(entries.getIfPresent(customerId));
+    }
+
+    @Override
+    public void put(Integer customerId, CachedCustomer cachedCustomer) {
+        entries.put(customerId, cachedCustomer);
+    }
+
+    @Override
+    public void evict(Integer customerId) {
+        entries.invalidate(customerId);
+    }
+}
@@ -0,0 +1,7 @@
+package my.project.fullstackapp.customer;
+
+public record VersionedCustomerPage(
+        CustomerPage page,
+        String eTag
+) {
+}
@@ -4,6 +4,9 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
 
 @Component
 @ConfigurationProperties(prefix = "file-storage")
@@ -13,4 +16,9 @@ public class FileStorageProperties {
 
     private String profileImageDirectory;
     private String profileImageName;
+    private List<Integer> thumbnailSizes = List.of(64, 256);
+    private int thumbnailThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private int thumbnailQueueCapacity = 32;
+    private DataSize imageCacheSize = DataSize.ofMegabytes(64);
+    private DataSize imageCacheMaximumEntrySize = DataSize.ofMegabytes(1);
 }
@@ -2,42 +2,105 @@ package my.project.fullstackapp.filestorage;
 
 import lombok.RequiredArgsConstructor;
 import my.project.fullstackapp.exception.ResourceNotFoundException;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class FileStorageService {
 
     private final FileStorageProperties fileStorageProperties;
+    private final ProfileImageThumbnails profileImageThumbnails;
+    private final ProfileImageCache profileImageCache;
 
-    public byte[] getProfileImage(String profileImageDirectoryAndName) {
-        try {
-            return Files.readAllBytes(Path.of(profileImageDirectoryAndName));
-        } catch (IOException e) {
-            throw new RuntimeException("Cannot read bytes");
+    public Resource getProfileImage(String profileImageDirectoryAndName) {
+        Resource profileImage = profileImageCache.get(Path.of(profileImageDirectoryAndName));
+        if (!profileImage.isReadable()) {
+            throw new ResourceNotFoundException("Profile image not found");
         }
+        return profileImage;
+    }
+
+    public Integer getProfileImageThumbnailSize(Integer requestedSize) {
+        return profileImageThumbnails.getSize(requestedSize);
     }
 
-    public String putProfileImage(Integer customerId, byte[] fileBytes, String originalFileName) {
+    public Optional<Resource> getProfileImageThumbnail(String profileImageDirectoryAndName, String contentHash, int size) {
+        Resource thumbnail = profileImageCache.get(
+                profileImageThumbnails.getPath(profileImageDirectoryAndName, contentHash, size));
+        return thumbnail.isReadable() ? Optional.of(thumbnail) : Optional.empty();
+    }
+
+    /*
+     * Streams the upload into a temp file next to the target and renames it to the SHA-256 of
+     * its content, computed on the way through. A name is only ever written with the same bytes,
+     * so the URL of an older upload never serves the new image, and the heap only ever holds the
+     * copy buffer. The thumbnails are queued once the image is in place.
+     */
+    public StoredFile putProfileImage(Integer customerId, InputStream fileStream, ProfileImageType type) {
 
-        String profileImageDirectory = fileStorageProperties.getProfileImageDirectory().formatted(customerId);
-        String profileImageName = fileStorageProperties.getProfileImageName().formatted(customerId, getFileExtension(originalFileName));
+        Path profileImageDirectory = Path.of(fileStorageProperties.getProfileImageDirectory().formatted(customerId));
 
+        MessageDigest digest = sha256();
+        Path tempProfileImage = null;
+        Path profileImage;
+        String contentHash;
         try {
-            Files.createDirectories(Path.of(profileImageDirectory));
-            Files.write(Path.of(profileImageDirectory + profileImageName), fileBytes);
+            Files.createDirectories(profileImageDirectory);
+            tempProfileImage = Files.createTempFile(profileImageDirectory, "profile-image", ".tmp");
+            Files.copy(new DigestInputStream(fileStream, digest), tempProfileImage, StandardCopyOption.REPLACE_EXISTING);
+            contentHash = Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+            profileImage = profileImageDirectory.resolve(
+                    fileStorageProperties.getProfileImageName().formatted(contentHash, type.getExtension()));
+            Files.move(tempProfileImage, profileImage,
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            profileImageCache.invalidate(profileImage);
         } catch (IOException e) {
+            deleteQuietly(tempProfileImage);
             throw new ResourceNotFoundException("Profile image not found");
         }
 
-        return profileImageDirectory + profileImageName;
+        StoredFile storedFile = new StoredFile(profileImage.toString(), contentHash);
+        profileImageThumbnails.generateAsync(storedFile);
+        return storedFile;
     }
 
-    private String getFileExtension(String fileName) {
-        return fileName.substring(fileName.lastIndexOf("."));
+    public void deleteProfileImage(String profileImageDirectoryAndName) {
+        try {
+            Files.deleteIfExists(Path.of(profileImageDirectoryAndName));
+            profileImageCache.invalidate(Path.of(profileImageDirectoryAndName));
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot delete profile image", e);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // the upload already failed, that is the error to report
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
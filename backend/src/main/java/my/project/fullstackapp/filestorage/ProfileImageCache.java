@@ -0,0 +1,138 @@
+package my.project.fullstackapp.filestorage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.core.io.DescriptiveResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Image bytes by file path in direct buffers, outside the heap the GC has to scan. Bounded by the
+ * total size of the images with Caffeine's frequency aware eviction, so a few popular profiles stay
+ * resident while one-off downloads pass through. Files above the entry limit are not cached and
+ * keep the sendfile path of the download endpoint.
+ */
+@Service
+public class ProfileImageCache {
+
+    private static final String CACHE_NAME = "profile-images";
+
+    private final Cache<String, ByteBuffer> images;
+    private final long maximumEntrySize;
+
+    public ProfileImageCache(FileStorageProperties fileStorageProperties, MeterRegistry meterRegistry) {
+        this.maximumEntrySize = fileStorageProperties.getImageCacheMaximumEntrySize().toBytes();
+        this.images = Caffeine.newBuilder()
+                .maximumWeight(fileStorageProperties.getImageCacheSize().toBytes())
+                .weigher((String path, ByteBuffer image) -> image.capacity())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, images, CACHE_NAME);
+        Gauge.builder("cache.resident.bytes", this, ProfileImageCache::residentBytes)
+                .tag("cache", CACHE_NAME)
+                .baseUnit(BaseUnits.BYTES)
+                .register(meterRegistry);
+        Gauge.builder("cache.hit.ratio", images, cache -> cache.stats().hitRate())
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The cached image, or the file itself when it is too large to cache or does not exist.
+     */
+    public Resource get(Path path) {
+        Bypass bypass = new Bypass(path);
+        ByteBuffer image = images.get(path.toString(), key -> read(path, bypass));
+        return image != null
+                ? new ByteBufferResource(image, path.getFileName().toString())
+                : bypass.resource;
+    }
+
+    // waits for a load of the same path in progress, so the bytes of a replaced file are not kept
+    public void invalidate(Path path) {
+        images.invalidate(path.toString());
+    }
+
+    void cleanUp() {
+        images.cleanUp();
+    }
+
+    long residentBytes() {
+        return images.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0))
+                .orElse(0L);
+    }
+
+    private ByteBuffer read(Path path, Bypass bypass) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > maximumEntrySize) {
+                bypass.resource = new OpenedFileResource(path, size);
+                return null;
+            }
+            ByteBuffer image = ByteBuffer.allocateDirect((int) size);
+            while (image.hasRemaining()) {
+                if (channel.read(image) < 0) {
+                    break;
+                }
+            }
+            return image.flip().asReadOnlyBuffer();
+        } catch (NoSuchFileException e) {
+            bypass.resource = new DescriptiveResource("missing file " + path);
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+     * What a load found out about a file it did not cache, so the caller does not stat it again.
+     * Stays a plain file resource when a load of the same path by another request was waited for.
+     */
+    private static final class Bypass {
+
+        private Resource resource;
+
+        private Bypass(Path path) {
+            this.resource = new FileSystemResource(path);
+        }
+    }
+
+    private static final class OpenedFileResource extends FileSystemResource {
+
+        private final long size;
+
+        private OpenedFileResource(Path path, long size) {
+            super(path);
+            this.size = size;
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public boolean isReadable() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package my.project.fullstackapp.filestorage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Resizes each stored profile image to the configured thumbnail sizes on a small, low priority
+ * pool with a bounded queue. Thumbnails are optional: when the queue is full the work is dropped
+ * and downloads keep serving the original. Files are named by content hash, so a thumbnail never
+ * outlives the image it was made from under the same URL. Jobs of one customer run one at a time,
+ * a job deletes the thumbnails of every other hash and must not race the job of a newer upload.
+ */
+@Slf4j
+@Service
+public class ProfileImageThumbnails implements AutoCloseable {
+
+    private static final String EXECUTOR_NAME = "profile-image-thumbnails";
+    private static final String THUMBNAIL_DIRECTORY = "thumbnails";
+
+    private final List<Integer> sizes;
+    private final ThreadPoolExecutor executor;
+    private final Timer duration;
+    private final Counter rejections;
+    // the newest upload per thumbnail directory, present while a job of that directory is queued or running
+    private final ConcurrentMap<Path, StoredFile> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ProfileImageThumbnails(FileStorageProperties fileStorageProperties, MeterRegistry meterRegistry) {
+        this(fileStorageProperties, meterRegistry, newExecutor(fileStorageProperties));
+    }
+
+    ProfileImageThumbnails(FileStorageProperties fileStorageProperties, MeterRegistry meterRegistry,
+                           ThreadPoolExecutor executor) {
+        this.sizes = fileStorageProperties.getThumbnailSizes().stream()
+                .sorted()
+                .toList();
+        this.executor = executor;
+        this.duration = Timer.builder("profile.image.thumbnails.duration")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("profile.image.thumbnails.rejections")
+                .register(meterRegistry);
+        new ExecutorServiceMetrics(executor, EXECUTOR_NAME, Tags.empty()).bindTo(meterRegistry);
+    }
+
+    public void generateAsync(StoredFile profileImage) {
+        if (sizes.isEmpty()) {
+            return;
+        }
+        // a job already queued or running for the customer picks the newer upload up when it is done
+        Path thumbnailDirectory = thumbnailDirectory(Path.of(profileImage.path()));
+        if (pending.put(thumbnailDirectory, profileImage) != null) {
+            return;
+        }
+        try {
+            executor.execute(() -> drain(thumbnailDirectory));
+        } catch (RejectedExecutionException e) {
+            pending.remove(thumbnailDirectory);
+            rejections.increment();
+            log.warn("Thumbnail queue is full, {} is served without thumbnails", profileImage.path());
+        }
+    }
+
+    // uploads that arrive while a job runs are coalesced, only the newest one is resized next
+    private void drain(Path thumbnailDirectory) {
+        StoredFile profileImage = pending.get(thumbnailDirectory);
+        while (profileImage != null) {
+            StoredFile current = profileImage;
+            try {
+                duration.record(() -> generate(current));
+            } catch (RuntimeException e) {
+                log.warn("Cannot create thumbnails of {}", current.path(), e);
+            }
+            if (pending.remove(thumbnailDirectory, current)) {
+                return;
+            }
+            profileImage = pending.get(thumbnailDirectory);
+        }
+    }
+
+    // the smallest thumbnail that is at least as large as requested, null when only the original is
+    public Integer getSize(Integer requestedSize) {
+        if (requestedSize == null) {
+            return null;
+        }
+        return sizes.stream()
+                .filter(size -> size >= requestedSize)
+                .findFirst()
+                .orElse(null);
+    }
+
+    public Path getPath(String profileImagePath, String contentHash, int size) {
+        return thumbnailPath(Path.of(profileImagePath), contentHash, size);
+    }
+
+    void generate(StoredFile profileImage) {
+        Path original = Path.of(profileImage.path());
+        String format = getFileExtension(original).substring(1);
+        if (!ImageIO.getImageWritersBySuffix(format).hasNext()) {
+            return;
+        }
+
+        try {
+            BufferedImage image = read(original, sizes.get(sizes.size() - 1));
+            if (image == null) {
+                return;
+            }
+            Files.createDirectories(thumbnailDirectory(original));
+            for (int size : sizes) {
+                write(resize(image, size, format), format, thumbnailPath(original, profileImage.contentHash(), size));
+            }
+            deleteStale(original, profileImage.contentHash());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // subsamples while decoding, so a large upload never sits in memory at full resolution
+    private BufferedImage read(Path original, int largestSize) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longestSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longestSide / (largestSize * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage resize(BufferedImage image, int size, String format) {
+        double scale = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        boolean alpha = image.getColorModel().hasAlpha() && !isJpeg(format);
+
+        // halves in steps, a single bilinear pass over a large ratio drops most of the source pixels
+        BufferedImage resized = image;
+        do {
+            int stepWidth = Math.max(width, resized.getWidth() / 2);
+            int stepHeight = Math.max(height, resized.getHeight() / 2);
+            BufferedImage step = new BufferedImage(stepWidth, stepHeight,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(resized, 0, 0, stepWidth, stepHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            resized = step;
+        } while (resized.getWidth() != width || resized.getHeight() != height);
+        return resized;
+    }
+
+    private void write(BufferedImage thumbnail, String format, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            if (!ImageIO.write(thumbnail, format, temp.toFile())) {
+                throw new IOException("No writer for " + format);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void deleteStale(Path original, String contentHash) throws IOException {
+        try (DirectoryStream<Path> thumbnails = Files.newDirectoryStream(thumbnailDirectory(original))) {
+            for (Path thumbnail : thumbnails) {
+                if (!thumbnail.getFileName().toString().startsWith(contentHash + "-")) {
+                    Files.deleteIfExists(thumbnail);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static ThreadPoolExecutor newExecutor(FileStorageProperties fileStorageProperties) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(EXECUTOR_NAME + "-");
+        threadFactory.setThreadPriority(Thread.MIN_PRIORITY);
+        threadFactory.setDaemon(true);
+        return new ThreadPoolExecutor(
+                fileStorageProperties.getThumbnailThreads(),
+                fileStorageProperties.getThumbnailThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fileStorageProperties.getThumbnailQueueCapacity()),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // one per customer, shared by the images of every extension
+    private static Path thumbnailDirectory(Path original) {
+        return original.resolveSibling(THUMBNAIL_DIRECTORY).toAbsolutePath().normalize();
+    }
+
+    private static Path thumbnailPath(Path original, String contentHash, int size) {
+        return original.resolveSibling(THUMBNAIL_DIRECTORY)
+                .resolve(contentHash + "-" + size + getFileExtension(original));
+    }
+
+    private static String getFileExtension(Path path) {
+        String fileName = path.getFileName().toString();
+        return fileName.substring(fileName.lastIndexOf("."));
+    }
+
+    private static boolean isJpeg(String format) {
+        return format.equalsIgnoreCase("jpg") || format.equalsIgnoreCase("jpeg");
+    }
+}
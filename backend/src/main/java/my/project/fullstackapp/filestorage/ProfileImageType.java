@@ -0,0 +1,92 @@
+package my.project.fullstackapp.filestorage;
+
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/*
+ * The image formats a profile image may have. The format is detected from the magic bytes of the
+ * upload, never from the name the uploader chose, and the stored file gets the canonical extension,
+ * so the extension of a stored file always names a type that is safe to serve inline.
+ */
+public enum ProfileImageType {
+
+    JPEG(MediaType.IMAGE_JPEG, ".jpg", Set.of(".jpg", ".jpeg")) {
+        @Override
+        boolean matches(byte[] header) {
+            return startsWith(header, 0, new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF});
+        }
+    },
+    PNG(MediaType.IMAGE_PNG, ".png", Set.of(".png")) {
+        @Override
+        boolean matches(byte[] header) {
+            return startsWith(header, 0, new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+        }
+    },
+    WEBP(MediaType.parseMediaType("image/webp"), ".webp", Set.of(".webp")) {
+        @Override
+        boolean matches(byte[] header) {
+            return startsWith(header, 0, ascii("RIFF")) && startsWith(header, 8, ascii("WEBP"));
+        }
+    };
+
+    private static final int HEADER_LENGTH = 12;
+
+    private final MediaType mediaType;
+    private final String extension;
+    private final Set<String> extensions;
+
+    ProfileImageType(MediaType mediaType, String extension, Set<String> extensions) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+        this.extensions = extensions;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    abstract boolean matches(byte[] header);
+
+    /**
+     * Reads the first bytes of the stream and resets it, so the stream must support mark.
+     */
+    public static Optional<ProfileImageType> detect(InputStream inputStream) throws IOException {
+        inputStream.mark(HEADER_LENGTH);
+        byte[] header = inputStream.readNBytes(HEADER_LENGTH);
+        inputStream.reset();
+        return Arrays.stream(values())
+                .filter(type -> type.matches(header))
+                .findFirst();
+    }
+
+    // files stored before the type was detected may carry any extension, those are not served as images
+    public static Optional<ProfileImageType> fromFileName(String fileName) {
+        if (fileName == null || fileName.lastIndexOf('.') < 0) {
+            return Optional.empty();
+        }
+        String extension = fileName.substring(fileName.lastIndexOf('.')).toLowerCase(Locale.ROOT);
+        return Arrays.stream(values())
+                .filter(type -> type.extensions.contains(extension))
+                .findFirst();
+    }
+
+    private static boolean startsWith(byte[] header, int offset, byte[] signature) {
+        return header.length >= offset + signature.length
+                && Arrays.equals(header, offset, offset + signature.length, signature, 0, signature.length);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
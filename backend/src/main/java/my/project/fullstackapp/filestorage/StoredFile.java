@@ -0,0 +1,7 @@
+package my.project.fullstackapp.filestorage;
+
+public record StoredFile(
+        String path,
+        String contentHash
+) {
+}
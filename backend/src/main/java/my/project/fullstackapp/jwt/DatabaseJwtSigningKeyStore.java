@@ -0,0 +1,119 @@
+package my.project.fullstackapp.jwt;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.SecureRandom;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/*
+ * Private keys are stored AES-GCM encrypted with jwt.key-encryption-key, so reading the table alone
+ * does not allow signing tokens. The key id is authenticated with each private key, a row copied
+ * over another one fails to decrypt.
+ */
+@Component
+@ConditionalOnProperty(name = "jwt.key-store", havingValue = "database", matchIfMissing = true)
+public class DatabaseJwtSigningKeyStore implements JwtSigningKeyStore {
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+
+    private final JwtSigningKeyRepository jwtSigningKeyRepository;
+    private final SecretKey keyEncryptionKey;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public DatabaseJwtSigningKeyStore(JwtSigningKeyRepository jwtSigningKeyRepository, JwtProperties jwtProperties) {
+        this.jwtSigningKeyRepository = jwtSigningKeyRepository;
+        this.keyEncryptionKey = keyEncryptionKey(jwtProperties.getKeyEncryptionKey());
+    }
+
+    @Override
+    public List<SigningKey> findAll() {
+        return jwtSigningKeyRepository.findAllByOrderByGenerationAsc().stream()
+                .map(this::toSigningKey)
+                .toList();
+    }
+
+    // the unique generation column rejects the second of two concurrent rotations
+    @Override
+    public boolean add(SigningKey signingKey) {
+        try {
+            jwtSigningKeyRepository.saveAndFlush(new JwtSigningKeyEntity(
+                    signingKey.id(),
+                    signingKey.generation(),
+                    encrypt(signingKey.id(), signingKey.privateKey().getEncoded()),
+                    signingKey.publicKey().getEncoded(),
+                    signingKey.createdAt()));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void deleteOlderThan(int generation) {
+        jwtSigningKeyRepository.deleteOlderThan(generation);
+    }
+
+    private SigningKey toSigningKey(JwtSigningKeyEntity entity) {
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+            byte[] privateKey = decrypt(entity.getId(), entity.getPrivateKey());
+            return new SigningKey(
+                    entity.getId(),
+                    entity.getGeneration(),
+                    (RSAPrivateKey) keyFactory.generatePrivate(new PKCS8EncodedKeySpec(privateKey)),
+                    (RSAPublicKey) keyFactory.generatePublic(new X509EncodedKeySpec(entity.getPublicKey())),
+                    entity.getCreatedAt());
+        } catch (GeneralSecurityException | ClassCastException e) {
+            throw new IllegalStateException("Cannot decode signing key " + entity.getId(), e);
+        }
+    }
+
+    private byte[] encrypt(String keyId, byte[] privateKey) {
+        try {
+            byte[] nonce = new byte[NONCE_LENGTH];
+            secureRandom.nextBytes(nonce);
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(TAG_LENGTH, nonce));
+            cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+            byte[] ciphertext = cipher.doFinal(privateKey);
+            return ByteBuffer.allocate(NONCE_LENGTH + ciphertext.length).put(nonce).put(ciphertext).array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot encrypt signing key " + keyId, e);
+        }
+    }
+
+    private byte[] decrypt(String keyId, byte[] encrypted) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.DECRYPT_MODE, keyEncryptionKey,
+                new GCMParameterSpec(TAG_LENGTH, Arrays.copyOf(encrypted, NONCE_LENGTH)));
+        cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+        return cipher.doFinal(encrypted, NONCE_LENGTH, encrypted.length - NONCE_LENGTH);
+    }
+
+    // fails at startup rather than on the first rotation
+    private static SecretKey keyEncryptionKey(String encoded) {
+        byte[] key = encoded == null ? new byte[0] : Base64.getDecoder().decode(encoded);
+        if (key.length != 16 && key.length != 24 && key.length != 32) {
+            throw new IllegalStateException("jwt.key-encryption-key must be a base64 AES key of 16, 24 or 32 bytes");
+        }
+        return new SecretKeySpec(key, "AES");
+    }
+}
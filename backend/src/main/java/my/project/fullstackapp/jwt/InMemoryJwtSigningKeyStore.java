@@ -0,0 +1,30 @@
+package my.project.fullstackapp.jwt;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+@Component
+@ConditionalOnProperty(name = "jwt.key-store", havingValue = "in-memory")
+public class InMemoryJwtSigningKeyStore implements JwtSigningKeyStore {
+
+    private final ConcurrentNavigableMap<Integer, SigningKey> keys = new ConcurrentSkipListMap<>();
+
+    @Override
+    public List<SigningKey> findAll() {
+        return List.copyOf(keys.values());
+    }
+
+    @Override
+    public boolean add(SigningKey signingKey) {
+        return keys.putIfAbsent(signingKey.generation(), signingKey) == null;
+    }
+
+    @Override
+    public void deleteOlderThan(int generation) {
+        keys.headMap(generation).clear();
+    }
+}
@@ -0,0 +1,25 @@
+package my.project.fullstackapp.jwt;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final JwtSigningKeys jwtSigningKeys;
+    private final JwtProperties jwtProperties;
+
+    // the next key is published an interval ahead, so caching for half of it never misses a key
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(jwtProperties.getKeyRotationInterval().dividedBy(2)).cachePublic())
+                .body(jwtSigningKeys.jwks());
+    }
+}
@@ -1,15 +1,19 @@
 package my.project.fullstackapp.jwt;
 
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import my.project.fullstackapp.security.PublicEndpoints;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -20,8 +24,16 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final UserDetailsService userDetailsService;
+    private final JwtProperties jwtProperties;
+    private final TokenInvalidationRegistry tokenInvalidationRegistry;
+    private final TokenRevocationList tokenRevocationList;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return PublicEndpoints.MATCHER.matches(request);
+    }
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
@@ -35,15 +47,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         String jwt = authHeader.substring(7);
-        String subject = jwtUtil.getSubject(jwt);
-
-        if (subject != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(subject);
-            if (jwtUtil.isTokenValid(jwt, userDetails.getUsername())) {
-                UsernamePasswordAuthenticationToken authenticationToken =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities()
-                        );
+        VerifiedToken verifiedToken;
+        try {
+            verifiedToken = verifiedTokenCache.verify(jwt);
+        } catch (JwtException e) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (verifiedToken.type() != TokenType.ACCESS || tokenRevocationList.isRevoked(verifiedToken.id())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (verifiedToken.subject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UsernamePasswordAuthenticationToken authenticationToken = authenticate(verifiedToken);
+            if (authenticationToken != null) {
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
             }
@@ -51,4 +70,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
 
     }
+
+    private UsernamePasswordAuthenticationToken authenticate(VerifiedToken verifiedToken) {
+        if (jwtProperties.isStatelessAuthentication() && !tokenInvalidationRegistry.requiresCheck(verifiedToken)) {
+            return new UsernamePasswordAuthenticationToken(
+                    verifiedToken.subject(),
+                    null,
+                    verifiedToken.scopes().stream().map(SimpleGrantedAuthority::new).toList()
+            );
+        }
+
+        try {
+            UserDetails userDetails = userDetailsService.loadUserByUsername(verifiedToken.subject());
+            return new UsernamePasswordAuthenticationToken(
+                    userDetails, null, userDetails.getAuthorities()
+            );
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+    }
 }
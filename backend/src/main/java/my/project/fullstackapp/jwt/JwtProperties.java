@@ -0,0 +1,32 @@
+package my.project.fullstackapp.jwt;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "jwt")
+@Getter
+@Setter
+public class JwtProperties {
+
+    // build the principal from the token's claims instead of loading the customer on every request
+    private boolean statelessAuthentication = true;
+    private Duration accessTokenLifetime = Duration.ofMinutes(15);
+    private Duration refreshTokenLifetime = Duration.ofDays(15);
+    // revocations the deny filter is sized for before it is rebuilt larger
+    private int revocationCapacity = 100_000;
+    private Duration keyRotationInterval = Duration.ofDays(1);
+    // how soon an instance picks up keys rotated by another one
+    private Duration keyRefreshInterval = Duration.ofMinutes(1);
+    // database, or in-memory for a single instance whose tokens may not outlive it
+    private String keyStore = "database";
+    // base64 AES key the database key store encrypts the private signing keys with
+    private String keyEncryptionKey;
+    // estimated heap of the verified token cache
+    private DataSize verifiedTokenCacheSize = DataSize.ofMegabytes(16);
+}
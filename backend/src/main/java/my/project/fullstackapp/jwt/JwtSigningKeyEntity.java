@@ -0,0 +1,36 @@
+package my.project.fullstackapp.jwt;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "jwt_signing_key")
+public class JwtSigningKeyEntity {
+
+    @Id
+    private String id;
+
+    @Column(nullable = false, unique = true)
+    private Integer generation;
+
+    // PKCS#8 encrypted with jwt.key-encryption-key, prefixed with its nonce
+    @Column(nullable = false)
+    private byte[] privateKey;
+
+    // X.509 SubjectPublicKeyInfo
+    @Column(nullable = false)
+    private byte[] publicKey;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
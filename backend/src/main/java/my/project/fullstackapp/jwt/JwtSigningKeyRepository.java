@@ -0,0 +1,19 @@
+package my.project.fullstackapp.jwt;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKeyEntity, String> {
+
+    List<JwtSigningKeyEntity> findAllByOrderByGenerationAsc();
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM JwtSigningKeyEntity k WHERE k.generation < :generation")
+    void deleteOlderThan(@Param("generation") int generation);
+}
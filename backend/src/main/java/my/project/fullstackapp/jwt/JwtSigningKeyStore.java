@@ -0,0 +1,19 @@
+package my.project.fullstackapp.jwt;
+
+import java.util.List;
+
+/*
+ * Signing key material shared by every instance, so tokens survive restarts and any instance
+ * verifies the tokens of the others. Adding a key of an existing generation must fail, which is
+ * what lets instances that rotate at the same moment agree on a single new key.
+ */
+public interface JwtSigningKeyStore {
+
+    // oldest generation first
+    List<SigningKey> findAll();
+
+    // false when another instance already stored a key of this generation
+    boolean add(SigningKey signingKey);
+
+    void deleteOlderThan(int generation);
+}
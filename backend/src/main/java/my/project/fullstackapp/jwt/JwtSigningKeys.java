@@ -0,0 +1,156 @@
+package my.project.fullstackapp.jwt;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/*
+ * RS256 signing keys, loaded from the JwtSigningKeyStore shared by all instances and rotated on
+ * jwt.key-rotation-interval. The next key is published in the JWKS one interval before it starts
+ * signing, so verifiers that cache the JWKS know it in time. A retired key is kept for verification
+ * until every token it signed has expired. Keys are only generated when the store has none or a
+ * rotation is due, so tokens survive restarts.
+ */
+@Slf4j
+@Component
+public class JwtSigningKeys {
+
+    // verifies on every request and signs only on login and refresh, and RS256 verifies far faster than ES256
+    static final SignatureAlgorithm ALGORITHM = SignatureAlgorithm.RS256;
+
+    private final JwtProperties jwtProperties;
+    private final JwtSigningKeyStore jwtSigningKeyStore;
+    private volatile KeySet keySet;
+
+    public JwtSigningKeys(JwtProperties jwtProperties, JwtSigningKeyStore jwtSigningKeyStore) {
+        this.jwtProperties = jwtProperties;
+        this.jwtSigningKeyStore = jwtSigningKeyStore;
+        this.keySet = load();
+    }
+
+    SigningKey current() {
+        return keySet.current();
+    }
+
+    PublicKey verificationKey(String keyId) {
+        PublicKey publicKey = keyId == null ? null : keySet.publicKeys().get(keyId);
+        if (publicKey == null) {
+            throw new JwtException("Unknown signing key id");
+        }
+        return publicKey;
+    }
+
+    public Map<String, Object> jwks() {
+        return keySet.jwks();
+    }
+
+    // picks up the rotations of other instances, and rotates once the next key has been published an interval
+    @Scheduled(fixedRateString = "#{@jwtProperties.keyRefreshInterval.toMillis()}",
+            initialDelayString = "#{@jwtProperties.keyRefreshInterval.toMillis()}")
+    public synchronized void refresh() {
+        try {
+            KeySet loaded = load();
+            if (loaded.next().createdAt().plus(jwtProperties.getKeyRotationInterval()).isAfter(Instant.now())) {
+                keySet = loaded;
+            } else {
+                rotate(loaded);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Cannot refresh the signing keys, keeping the loaded ones", e);
+        }
+    }
+
+    public synchronized void rotate() {
+        rotate(load());
+    }
+
+    // an instance that loses the race to add the generation simply loads the key of the winner
+    private void rotate(KeySet loaded) {
+        jwtSigningKeyStore.add(generate(loaded.next().generation() + 1));
+        keySet = load();
+    }
+
+    private KeySet load() {
+        List<SigningKey> keys = jwtSigningKeyStore.findAll();
+        while (keys.size() < 2) {
+            jwtSigningKeyStore.add(generate(keys.isEmpty() ? 0 : keys.get(keys.size() - 1).generation() + 1));
+            keys = jwtSigningKeyStore.findAll();
+        }
+
+        // a key retires when the key after its successor is created, and verifies a refresh token lifetime longer
+        Instant now = Instant.now();
+        int first = 0;
+        while (first < keys.size() - 2
+                && !keys.get(first + 2).createdAt().plus(jwtProperties.getRefreshTokenLifetime()).isAfter(now)) {
+            first++;
+        }
+        if (first > 0) {
+            jwtSigningKeyStore.deleteOlderThan(keys.get(first).generation());
+        }
+        return new KeySet(keys.subList(first, keys.size()));
+    }
+
+    private static SigningKey generate(int generation) {
+        KeyPair keyPair = Keys.keyPairFor(ALGORITHM);
+        return new SigningKey(UUID.randomUUID().toString(), generation,
+                (RSAPrivateKey) keyPair.getPrivate(), (RSAPublicKey) keyPair.getPublic(), Instant.now());
+    }
+
+    // the key lookup and the JWKS document are derived once per load, not per request
+    private record KeySet(SigningKey current, SigningKey next,
+                          Map<String, PublicKey> publicKeys, Map<String, Object> jwks) {
+
+        KeySet(List<SigningKey> keys) {
+            this(keys.get(keys.size() - 2), keys.get(keys.size() - 1), publicKeys(keys), jwks(keys));
+        }
+
+        // the next key verifies too, another instance may have rotated before this one reloads
+        private static Map<String, PublicKey> publicKeys(List<SigningKey> keys) {
+            Map<String, PublicKey> publicKeys = new LinkedHashMap<>();
+            keys.forEach(key -> publicKeys.put(key.id(), key.publicKey()));
+            return Map.copyOf(publicKeys);
+        }
+
+        private static Map<String, Object> jwks(List<SigningKey> keys) {
+            List<Map<String, Object>> jwks = new ArrayList<>();
+            keys.forEach(key -> jwks.add(jwk(key)));
+            return Map.of("keys", List.copyOf(jwks));
+        }
+
+        private static Map<String, Object> jwk(SigningKey key) {
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "RSA");
+            jwk.put("use", "sig");
+            jwk.put("alg", ALGORITHM.getValue());
+            jwk.put("kid", key.id());
+            jwk.put("n", unsigned(key.publicKey().getModulus()));
+            jwk.put("e", unsigned(key.publicKey().getPublicExponent()));
+            return jwk;
+        }
+
+        // RFC 7518 requires the unsigned big-endian value, BigInteger adds a sign byte when the top bit is set
+        private static String unsigned(BigInteger value) {
+            byte[] bytes = value.toByteArray();
+            int offset = bytes.length > 1 && bytes[0] == 0 ? 1 : 0;
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(Arrays.copyOfRange(bytes, offset, bytes.length));
+        }
+    }
+}
@@ -1,23 +1,46 @@
 package my.project.fullstackapp.jwt;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
-import static java.time.temporal.ChronoUnit.*;
+import java.util.UUID;
 
 @Service
 public class JwtUtil {
 
-    private static final String SECRET_KEY = "foobar_123456789_foobar_123456789_foobar_123456789_foobar_123456789";
+    public static final String REFRESH_TOKEN_HEADER = "Refresh-Token";
+
+    private static final String TYPE_CLAIM = "token_type";
+    private static final String FAMILY_CLAIM = "family";
+
+    private final JwtProperties jwtProperties;
+    private final JwtSigningKeys jwtSigningKeys;
+    // immutable and thread-safe, so it is built once; public keys are looked up by the kid header
+    private final JwtParser jwtParser;
+
+    public JwtUtil(JwtProperties jwtProperties, JwtSigningKeys jwtSigningKeys) {
+        this.jwtProperties = jwtProperties;
+        this.jwtSigningKeys = jwtSigningKeys;
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return jwtSigningKeys.verificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+    }
 
     public String issueToken(String subject) {
         return issueToken(subject, Map.of());
@@ -34,41 +57,70 @@ public class JwtUtil {
     public String issueToken(
             String subject,
             Map<String, Object> claims) {
+        return issueToken(subject, claims, jwtProperties.getAccessTokenLifetime());
+    }
+
+    public String issueRefreshToken(String subject) {
+        return issueRefreshToken(subject, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Issues a refresh token of an existing session. All refresh tokens rotated from one login
+     * share the family, so the whole session can be revoked at once.
+     */
+    public String issueRefreshToken(String subject, String family) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(TYPE_CLAIM, TokenType.REFRESH.name());
+        claims.put(FAMILY_CLAIM, family);
+        return issueToken(subject, claims, jwtProperties.getRefreshTokenLifetime());
+    }
+
+    private String issueToken(String subject, Map<String, Object> claims, Duration lifetime) {
+        Instant now = Instant.now();
+        SigningKey signingKey = jwtSigningKeys.current();
         return Jwts
                 .builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.id())
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(subject)
                 .setIssuer("Nikolai")
-                .setIssuedAt(Date.from(Instant.now()))
-                .setExpiration(Date.from(Instant.now().plus(15, DAYS)))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(now.plus(lifetime)))
+                .signWith(signingKey.privateKey(), JwtSigningKeys.ALGORITHM)
                 .compact();
     }
 
-    public String getSubject(String token) {
-        return getClaims(token).getSubject();
-    }
-
-    private Claims getClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Parses the token and checks its signature and expiration once.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public VerifiedToken verify(String token) {
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        return new VerifiedToken(
+                claims.getId(),
+                claims.getSubject(),
+                getScopes(claims),
+                claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant(),
+                claims.getExpiration() == null ? null : claims.getExpiration().toInstant(),
+                TokenType.REFRESH.name().equals(claims.get(TYPE_CLAIM)) ? TokenType.REFRESH : TokenType.ACCESS,
+                claims.get(FAMILY_CLAIM, String.class)
+        );
     }
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    public String getSubject(String token) {
+        return verify(token).subject();
     }
 
     public boolean isTokenValid(String jwt, String username) {
-        String subject = getSubject(jwt);
-        return subject.equals(username) && !isTokenExpired(jwt);
+        return verify(jwt).subject().equals(username);
     }
 
-    private boolean isTokenExpired(String jwt) {
-        Date today = Date.from(Instant.now());
-        return getClaims(jwt).getExpiration().before(today);
+    private List<String> getScopes(Claims claims) {
+        if (claims.get("scopes") instanceof List<?> scopes) {
+            return scopes.stream().map(String::valueOf).toList();
+        }
+        return List.of();
     }
 }
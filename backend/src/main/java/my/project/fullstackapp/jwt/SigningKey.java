@@ -0,0 +1,15 @@
+package my.project.fullstackapp.jwt;
+
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+
+record SigningKey(
+        String id,
+        // keys are used in generation order, the newest is the next key and the one before it signs
+        int generation,
+        RSAPrivateKey privateKey,
+        RSAPublicKey publicKey,
+        Instant createdAt
+) {
+}
@@ -0,0 +1,42 @@
+package my.project.fullstackapp.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import my.project.fullstackapp.customer.CustomerPrincipalChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/*
+ * Remembers when the principal behind a subject last changed. Tokens issued at or before that
+ * moment are not trusted on their claims alone and are checked against the database instead.
+ * Entries outlive every token they can affect and are never evicted by size, which would
+ * silently make stale tokens trusted again.
+ */
+@Component
+public class TokenInvalidationRegistry {
+
+    private final Cache<String, Instant> invalidations;
+
+    public TokenInvalidationRegistry(JwtProperties jwtProperties) {
+        this.invalidations = Caffeine.newBuilder()
+                .expireAfterWrite(jwtProperties.getRefreshTokenLifetime())
+                .build();
+    }
+
+    public void invalidate(String subject) {
+        invalidations.put(subject, Instant.now());
+    }
+
+    public boolean requiresCheck(VerifiedToken verifiedToken) {
+        Instant invalidatedAt = invalidations.getIfPresent(verifiedToken.subject());
+        return invalidatedAt != null
+                && (verifiedToken.issuedAt() == null || !verifiedToken.issuedAt().isAfter(invalidatedAt));
+    }
+
+    @EventListener
+    public void onCustomerPrincipalChanged(CustomerPrincipalChangedEvent event) {
+        invalidate(event.username());
+    }
+}
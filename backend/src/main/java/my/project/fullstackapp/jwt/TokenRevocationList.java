@@ -0,0 +1,75 @@
+package my.project.fullstackapp.jwt;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Ids of revoked tokens and refresh token families, kept until the tokens they revoke expire.
+ * A Bloom filter answers the common "not revoked" case without touching the exact set, which
+ * only settles the rare filter hit. Revocations are serialized; lookups never lock.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final Duration PURGE_INTERVAL = Duration.ofMinutes(1);
+
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private final int minimumCapacity;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private volatile BloomFilter filter;
+    private Instant nextPurge = Instant.MIN;
+
+    public TokenRevocationList(JwtProperties jwtProperties, VerifiedTokenCache verifiedTokenCache) {
+        this.minimumCapacity = jwtProperties.getRevocationCapacity();
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.filter = new BloomFilter(minimumCapacity, FALSE_POSITIVE_RATE);
+    }
+
+    public boolean isRevoked(String id) {
+        return id != null && filter.mightContain(id) && revoked.containsKey(id);
+    }
+
+    /**
+     * @return false if the id was already revoked
+     */
+    public synchronized boolean revoke(String id, Instant until) {
+        purgeExpired();
+        if (revoked.putIfAbsent(id, until) != null) {
+            return false;
+        }
+        if (revoked.size() > filter.capacity()) {
+            rebuild();
+        } else {
+            filter.put(id);
+        }
+        verifiedTokenCache.evict(id);
+        return true;
+    }
+
+    int size() {
+        return revoked.size();
+    }
+
+    private void purgeExpired() {
+        Instant now = Instant.now();
+        if (now.isBefore(nextPurge)) {
+            return;
+        }
+        nextPurge = now.plus(PURGE_INTERVAL);
+        if (revoked.values().removeIf(until -> !until.isAfter(now))) {
+            rebuild();
+        }
+    }
+
+    // readers keep using the old filter until the swap, it still covers every revoked id
+    private void rebuild() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(minimumCapacity, revoked.size() * 2), FALSE_POSITIVE_RATE);
+        revoked.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+    }
+}
@@ -0,0 +1,6 @@
+package my.project.fullstackapp.jwt;
+
+public enum TokenType {
+    ACCESS,
+    REFRESH
+}
@@ -0,0 +1,19 @@
+package my.project.fullstackapp.jwt;
+
+import java.time.Instant;
+import java.util.List;
+
+public record VerifiedToken(
+        String id,
+        String subject,
+        List<String> scopes,
+        Instant issuedAt,
+        Instant expiresAt,
+        TokenType type,
+        String family
+) {
+
+    public VerifiedToken {
+        scopes = scopes == null ? List.of() : List.copyOf(scopes);
+    }
+}
@@ -0,0 +1,184 @@
+package my.project.fullstackapp.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/*
+ * Verified tokens by the SHA-256 of the token, so a repeated bearer token costs a digest and a
+ * lookup instead of a signature check. An entry expires with its token and is dropped when the
+ * token or its refresh family is revoked. The cache is bounded by an estimate of its heap use.
+ * Expiry is measured on the cache's ticker, anchored to the wall clock once, so the duration an
+ * entry gets and the time Caffeine checks it against come from the same clock.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final String CACHE_NAME = "verified-tokens";
+    // object headers, references and the two Instants of an entry and its index nodes, rounded up
+    private static final int ENTRY_OVERHEAD_BYTES = 320;
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    private final JwtUtil jwtUtil;
+    private final Instant origin;
+    private final long originNanos;
+    private final Cache<String, VerifiedToken> verifiedTokens;
+    // digests by token id and by refresh family, so a revocation does not scan the cache
+    private final ConcurrentMap<String, Set<String>> digestsById = new ConcurrentHashMap<>();
+
+    @Autowired
+    public VerifiedTokenCache(JwtUtil jwtUtil, JwtProperties jwtProperties, MeterRegistry meterRegistry) {
+        this(jwtUtil, jwtProperties, meterRegistry, Ticker.systemTicker());
+    }
+
+    VerifiedTokenCache(JwtUtil jwtUtil, JwtProperties jwtProperties, MeterRegistry meterRegistry, Ticker ticker) {
+        this.jwtUtil = jwtUtil;
+        this.origin = Instant.now();
+        this.originNanos = ticker.read();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumWeight(jwtProperties.getVerifiedTokenCacheSize().toBytes())
+                .weigher(VerifiedTokenCache::estimateBytes)
+                .expireAfter(new ExpireAtTokenExpiration())
+                .evictionListener(this::unindex)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, CACHE_NAME);
+        Gauge.builder("cache.estimated.size.bytes", this, VerifiedTokenCache::estimatedSizeBytes)
+                .tag("cache", CACHE_NAME)
+                .baseUnit(BaseUnits.BYTES)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Same contract as {@link JwtUtil#verify(String)}.
+     */
+    public VerifiedToken verify(String token) {
+        String digest = digest(token);
+        VerifiedToken verifiedToken = verifiedTokens.getIfPresent(digest);
+        if (verifiedToken != null) {
+            return verifiedToken;
+        }
+        verifiedToken = jwtUtil.verify(token);
+        if (verifiedToken.expiresAt() != null) {
+            // indexed after the put, which evicts an expired entry of the same digest and unindexes it
+            verifiedTokens.put(digest, verifiedToken);
+            index(digest, verifiedToken);
+        }
+        return verifiedToken;
+    }
+
+    // an entry cached while its token is being revoked may escape the eviction, the revocation
+    // list is checked after the cache and still rejects it
+    public void evict(String id) {
+        Set<String> digests = digestsById.remove(id);
+        if (digests == null) {
+            return;
+        }
+        digests.forEach(digest -> {
+            VerifiedToken verifiedToken = verifiedTokens.asMap().remove(digest);
+            if (verifiedToken != null) {
+                unindex(digest, verifiedToken, RemovalCause.EXPLICIT);
+            }
+        });
+    }
+
+    long estimatedSizeBytes() {
+        return verifiedTokens.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0))
+                .orElse(0L);
+    }
+
+    int indexedIds() {
+        verifiedTokens.cleanUp();
+        return digestsById.size();
+    }
+
+    private void index(String digest, VerifiedToken verifiedToken) {
+        keys(verifiedToken).forEach(key -> digestsById.compute(key, (k, digests) -> {
+            Set<String> indexed = digests == null ? ConcurrentHashMap.newKeySet() : digests;
+            indexed.add(digest);
+            return indexed;
+        }));
+    }
+
+    private void unindex(String digest, VerifiedToken verifiedToken, RemovalCause cause) {
+        if (digest == null || verifiedToken == null) {
+            return;
+        }
+        keys(verifiedToken).forEach(key -> digestsById.computeIfPresent(key, (k, digests) -> {
+            digests.remove(digest);
+            return digests.isEmpty() ? null : digests;
+        }));
+    }
+
+    private static Stream<String> keys(VerifiedToken verifiedToken) {
+        return Stream.of(verifiedToken.id(), verifiedToken.family()).filter(Objects::nonNull);
+    }
+
+    private Instant now(long tickerNanos) {
+        return origin.plusNanos(tickerNanos - originNanos);
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int estimateBytes(String digest, VerifiedToken verifiedToken) {
+        return ENTRY_OVERHEAD_BYTES
+                + stringBytes(digest)
+                + stringBytes(verifiedToken.id())
+                + stringBytes(verifiedToken.subject())
+                + stringBytes(verifiedToken.family())
+                + verifiedToken.scopes().stream().mapToInt(VerifiedTokenCache::stringBytes).sum();
+    }
+
+    private static int stringBytes(String value) {
+        return value == null ? 0 : STRING_OVERHEAD_BYTES + value.length();
+    }
+
+    private class ExpireAtTokenExpiration implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String digest, VerifiedToken verifiedToken, long currentTime) {
+            return Math.max(0, Duration.between(now(currentTime), verifiedToken.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, VerifiedToken verifiedToken, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(digest, verifiedToken, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, VerifiedToken verifiedToken, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package my.project.fullstackapp.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import my.project.fullstackapp.exception.ServiceUnavailableException;
+import org.springframework.context.MessageSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.*;
+
+/*
+ * Runs the CPU-bound hashing of the delegate on a fixed pool sized to the cores, so a burst of
+ * logins or registrations cannot take every core away from the rest of the API. When the pool
+ * and its queue are full the call fails fast with a 503 instead of waiting.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private static final String EXECUTOR_NAME = "password-encoder";
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final PasswordEncoderProperties properties;
+    private final MessageSource messageSource;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejections;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate,
+                                  PasswordEncoderProperties properties,
+                                  MessageSource messageSource,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.messageSource = messageSource;
+        this.executor = new ThreadPoolExecutor(
+                properties.getThreads(),
+                properties.getThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                new CustomizableThreadFactory(EXECUTOR_NAME + "-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.encodeTimer = timer(meterRegistry, "encode");
+        this.matchesTimer = timer(meterRegistry, "matches");
+        this.rejections = Counter.builder("password.encoder.rejections")
+                .register(meterRegistry);
+        new ExecutorServiceMetrics(executor, EXECUTOR_NAME, Tags.empty()).bindTo(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> encodeTimer.record(() -> delegate.encode(rawPassword)));
+    }
+
+    /*
+     * Hashes a batch a pool's worth of threads at a time, so a bulk request never fills the queue
+     * ahead of logins. A password the pool rejects completes its future with the 503 instead of
+     * failing the rest of the batch; every returned future is complete.
+     */
+    public List<CompletableFuture<String>> encodeAll(List<? extends CharSequence> rawPasswords) {
+        List<CompletableFuture<String>> encoded = new ArrayList<>(rawPasswords.size());
+        for (int from = 0; from < rawPasswords.size(); from += properties.getThreads()) {
+            List<CompletableFuture<String>> batch = rawPasswords
+                    .subList(from, Math.min(from + properties.getThreads(), rawPasswords.size()))
+                    .stream()
+                    .map(this::encodeAsync)
+                    .toList();
+            CompletableFuture.allOf(batch.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+            encoded.addAll(batch);
+        }
+        return encoded;
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        try {
+            return CompletableFuture.supplyAsync(() -> encodeTimer.record(() -> delegate.encode(rawPassword)), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(busy());
+        }
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw busy();
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private ServiceUnavailableException busy() {
+        rejections.increment();
+        return new ServiceUnavailableException(messageSource.getMessage(
+                "exception.server.passwordEncoderBusy", null, Locale.getDefault()), properties.getRetryAfter());
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("password.encoder.duration")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,67 @@
+package my.project.fullstackapp.security;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import my.project.fullstackapp.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/*
+ * Limits password attempts per account and per client address before any password is hashed.
+ * Every attempt takes a token, successful or not, so the cost of a credential stuffing wave is
+ * bounded by the bucket rates rather than by the password encoder.
+ */
+@Component
+public class LoginThrottle {
+
+    private final MessageSource messageSource;
+    private final TokenBucketLimiter usernames;
+    private final TokenBucketLimiter addresses;
+    private final Counter usernameRejections;
+    private final Counter addressRejections;
+
+    @Autowired
+    public LoginThrottle(LoginThrottleProperties properties, MessageSource messageSource, MeterRegistry meterRegistry) {
+        this(properties, messageSource, meterRegistry, Ticker.systemTicker());
+    }
+
+    LoginThrottle(LoginThrottleProperties properties, MessageSource messageSource, MeterRegistry meterRegistry,
+                  Ticker ticker) {
+        this.messageSource = messageSource;
+        this.usernames = new TokenBucketLimiter(properties.getUsernameCapacity(),
+                properties.getUsernameRefillPeriod(), properties.getMaximumKeys(), ticker);
+        this.addresses = new TokenBucketLimiter(properties.getAddressCapacity(),
+                properties.getAddressRefillPeriod(), properties.getMaximumKeys(), ticker);
+        this.usernameRejections = rejections(meterRegistry, "username");
+        this.addressRejections = rejections(meterRegistry, "address");
+    }
+
+    public void checkOrThrow(String username, String address) {
+        if (address != null) {
+            acquireOrThrow(addresses, address, addressRejections);
+        }
+        if (username != null) {
+            acquireOrThrow(usernames, username.trim().toLowerCase(Locale.ROOT), usernameRejections);
+        }
+    }
+
+    private void acquireOrThrow(TokenBucketLimiter limiter, String key, Counter rejections) {
+        Duration retryAfter = limiter.tryAcquire(key);
+        if (!retryAfter.isZero()) {
+            rejections.increment();
+            throw new TooManyRequestsException(messageSource.getMessage(
+                    "exception.authentication.tooManyAttempts", null, Locale.getDefault()), retryAfter);
+        }
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String bucket) {
+        return Counter.builder("login.throttle.rejections")
+                .tag("bucket", bucket)
+                .register(meterRegistry);
+    }
+}
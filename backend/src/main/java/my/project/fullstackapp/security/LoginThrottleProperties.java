@@ -0,0 +1,21 @@
+package my.project.fullstackapp.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "login-throttle")
+@Getter
+@Setter
+public class LoginThrottleProperties {
+
+    private int usernameCapacity = 5;
+    private Duration usernameRefillPeriod = Duration.ofMinutes(1);
+    private int addressCapacity = 50;
+    private Duration addressRefillPeriod = Duration.ofMinutes(1);
+    private long maximumKeys = 100_000;
+}
@@ -0,0 +1,24 @@
+package my.project.fullstackapp.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "password-encoder")
+@Getter
+@Setter
+public class PasswordEncoderProperties {
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 64;
+    private Duration retryAfter = Duration.ofSeconds(1);
+    private String encodingId = PasswordEncoders.BCRYPT;
+    private Duration targetHashDuration = Duration.ofMillis(100);
+    // calibrated against target-hash-duration at startup when not set
+    private Integer bcryptStrength;
+    private int pbkdf2Iterations = 310_000;
+}
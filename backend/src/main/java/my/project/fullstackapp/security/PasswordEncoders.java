@@ -0,0 +1,80 @@
+package my.project.fullstackapp.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+
+/*
+ * Hashes are stored as {id}hash. Hashes written before the prefix existed are plain BCrypt and are
+ * still matched; DaoAuthenticationProvider re-encodes them, and any hash below the current cost,
+ * on the next successful login.
+ */
+@Slf4j
+public final class PasswordEncoders {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String PBKDF2 = "pbkdf2";
+
+    static final int MIN_BCRYPT_STRENGTH = 10;
+    static final int MAX_BCRYPT_STRENGTH = 14;
+
+    private static final int PBKDF2_SALT_LENGTH = 16;
+    private static final int CALIBRATION_RUNS = 5;
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    private PasswordEncoders() {
+    }
+
+    public static PasswordEncoder delegating(PasswordEncoderProperties properties) {
+        int strength = properties.getBcryptStrength() != null
+                ? properties.getBcryptStrength()
+                : calibrateBcryptStrength(properties.getTargetHashDuration());
+        log.info("Encoding passwords with {} (bcrypt strength {}, pbkdf2 iterations {})",
+                properties.getEncodingId(), strength, properties.getPbkdf2Iterations());
+
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder delegatingPasswordEncoder = new DelegatingPasswordEncoder(
+                properties.getEncodingId(),
+                Map.of(BCRYPT, bcrypt, PBKDF2, pbkdf2(properties.getPbkdf2Iterations())));
+        delegatingPasswordEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return delegatingPasswordEncoder;
+    }
+
+    static PasswordEncoder pbkdf2(int iterations) {
+        // the iteration count is not part of the hash, so it must stay fixed once hashes exist
+        return new Pbkdf2PasswordEncoder("", PBKDF2_SALT_LENGTH, iterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+    }
+
+    /*
+     * Every BCrypt strength step doubles the work, so one measurement at the minimum strength
+     * is enough to find the highest strength that stays within the target.
+     */
+    static int calibrateBcryptStrength(Duration target) {
+        long nanos = medianHashNanos(new BCryptPasswordEncoder(MIN_BCRYPT_STRENGTH));
+        int strength = MIN_BCRYPT_STRENGTH;
+        while (strength < MAX_BCRYPT_STRENGTH && nanos * 2 <= target.toNanos()) {
+            nanos *= 2;
+            strength++;
+        }
+        return strength;
+    }
+
+    private static long medianHashNanos(PasswordEncoder passwordEncoder) {
+        passwordEncoder.encode(CALIBRATION_PASSWORD);
+        long[] samples = new long[CALIBRATION_RUNS];
+        for (int i = 0; i < CALIBRATION_RUNS; i++) {
+            long start = System.nanoTime();
+            passwordEncoder.encode(CALIBRATION_PASSWORD);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[CALIBRATION_RUNS / 2];
+    }
+}
@@ -0,0 +1,22 @@
+package my.project.fullstackapp.security;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+public final class PublicEndpoints {
+
+    public static final RequestMatcher MATCHER = new OrRequestMatcher(
+            new AntPathRequestMatcher("/api/v1/customers", HttpMethod.POST.name()),
+            new AntPathRequestMatcher("/api/v1/auth/login", HttpMethod.POST.name()),
+            new AntPathRequestMatcher("/api/v1/auth/refresh", HttpMethod.POST.name()),
+            new AntPathRequestMatcher("/api/v1/auth/logout", HttpMethod.POST.name()),
+            new AntPathRequestMatcher("/api/v1/customers/*/profile-image", HttpMethod.GET.name()),
+            new AntPathRequestMatcher("/api/v1/customers/*/profile-image/*", HttpMethod.GET.name()),
+            new AntPathRequestMatcher("/.well-known/jwks.json", HttpMethod.GET.name())
+    );
+
+    private PublicEndpoints() {
+    }
+}
@@ -4,7 +4,6 @@ import lombok.RequiredArgsConstructor;
 import my.project.fullstackapp.jwt.JwtAuthenticationFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -28,16 +27,7 @@ public class SecurityFilterChainConfig {
                 .cors(Customizer.withDefaults())
 
                 .authorizeHttpRequests()
-                .requestMatchers(
-                        HttpMethod.POST,
-                        "/api/v1/customers",
-                        "/api/v1/auth/login"
-                )
-                .permitAll()
-                .requestMatchers(
-                        HttpMethod.GET,
-                        "/api/v1/customers/*/profile-image"
-                )
+                .requestMatchers(PublicEndpoints.MATCHER)
                 .permitAll()
                 .anyRequest()
                 .authenticated()
@@ -0,0 +1,58 @@
+package my.project.fullstackapp.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Token buckets per key, kept as the generic cell rate algorithm: a bucket is a single AtomicLong
+ * holding the time at which it is full again, updated with a CAS loop instead of a lock. Buckets
+ * live in a size-bounded Caffeine map and are dropped once idle, when they would be full anyway.
+ */
+final class TokenBucketLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final Ticker ticker;
+    private final Cache<String, AtomicLong> buckets;
+
+    TokenBucketLimiter(int capacity, Duration refillPeriod, long maximumKeys, Ticker ticker) {
+        this.emissionIntervalNanos = refillPeriod.toNanos() / capacity;
+        this.burstNanos = emissionIntervalNanos * capacity;
+        this.ticker = ticker;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(refillPeriod)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Takes a token from the bucket of the key.
+     *
+     * @return zero if a token was taken, otherwise how long until the next token is available
+     */
+    Duration tryAcquire(String key) {
+        AtomicLong fullAt = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        long now = ticker.read();
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + emissionIntervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return Duration.ofNanos(wait);
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return Duration.ZERO;
+            }
+        }
+    }
+
+    long size() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,15 @@
+-- Runs after Hibernate's schema update (spring.jpa.defer-datasource-initialization),
+-- for objects that cannot be expressed with JPA annotations. Keep every statement idempotent.
+
+CREATE INDEX IF NOT EXISTS customer_name_prefix_idx ON customer (lower(name) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS customer_email_prefix_idx ON customer (lower(email) text_pattern_ops);
+
+-- Customer.id uses a pooled optimizer; databases created with allocationSize = 1 need the matching increment.
+ALTER SEQUENCE IF EXISTS customer_id_sequence INCREMENT BY 50;
+
+-- profile_image holds the public, content-versioned image URL and profile_image_path the stored file.
+-- Rows written before that split keep their file and get an opaque version derived from its path.
+UPDATE customer
+SET profile_image_path = profile_image,
+    profile_image = '/api/v1/customers/' || id || '/profile-image/' || md5(profile_image)
+WHERE profile_image_path IS NULL AND profile_image IS NOT NULL;
@@ -0,0 +1,118 @@
+package my.project.fullstackapp.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.project.fullstackapp.customer.CustomerPrincipal;
+import my.project.fullstackapp.customer.Gender;
+import my.project.fullstackapp.jwt.InMemoryJwtSigningKeyStore;
+import my.project.fullstackapp.jwt.JwtProperties;
+import my.project.fullstackapp.jwt.JwtSigningKeys;
+import my.project.fullstackapp.jwt.JwtUtil;
+import my.project.fullstackapp.jwt.TokenRevocationList;
+import my.project.fullstackapp.jwt.VerifiedToken;
+import my.project.fullstackapp.jwt.VerifiedTokenCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthenticationServiceTest {
+
+    private AuthenticationService underTest;
+    @Mock
+    private AuthenticationManager authenticationManager;
+    @Mock
+    private UserDetailsService userDetailsService;
+    @Mock
+    private MessageSource messageSource;
+    private final JwtProperties jwtProperties = new JwtProperties();
+    private final JwtUtil jwtUtil =
+            new JwtUtil(jwtProperties, new JwtSigningKeys(jwtProperties, new InMemoryJwtSigningKeyStore()));
+    private final TokenRevocationList tokenRevocationList = new TokenRevocationList(jwtProperties,
+            new VerifiedTokenCache(jwtUtil, jwtProperties, new SimpleMeterRegistry()));
+
+    private final CustomerPrincipal customer =
+            new CustomerPrincipal(1, "Nikolai", "nikolai@gmail.com", 28, Gender.MALE, null, "password");
+
+    @BeforeEach
+    void setUp() {
+        underTest = new AuthenticationService(authenticationManager, jwtUtil, jwtProperties, tokenRevocationList,
+                userDetailsService, messageSource);
+    }
+
+    @Test
+    void testRefresh_RotatesWithinFamily() {
+        // Given
+        String refreshToken = jwtUtil.issueRefreshToken("nikolai@gmail.com", "family");
+        when(userDetailsService.loadUserByUsername("nikolai@gmail.com")).thenReturn(customer);
+
+        // When
+        AuthenticationResponse actual = underTest.refresh(new RefreshTokenRequest(refreshToken));
+
+        // Then
+        VerifiedToken rotated = jwtUtil.verify(actual.refreshToken());
+        assertThat(rotated.family()).isEqualTo("family");
+        assertThat(jwtUtil.verify(actual.token()).subject()).isEqualTo("nikolai@gmail.com");
+        assertThat(actual.customerDTO().email()).isEqualTo("nikolai@gmail.com");
+        assertThat(tokenRevocationList.isRevoked(jwtUtil.verify(refreshToken).id())).isTrue();
+    }
+
+    @Test
+    void testRefresh_Exception_ReuseRevokesFamily() {
+        // Given
+        String refreshToken = jwtUtil.issueRefreshToken("nikolai@gmail.com", "family");
+        when(userDetailsService.loadUserByUsername("nikolai@gmail.com")).thenReturn(customer);
+        when(messageSource.getMessage("exception.authentication.invalidRefreshToken", null, Locale.getDefault()))
+                .thenReturn("Exception message");
+        AuthenticationResponse rotated = underTest.refresh(new RefreshTokenRequest(refreshToken));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.refresh(new RefreshTokenRequest(refreshToken)))
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage("Exception message");
+        assertThatThrownBy(() -> underTest.refresh(new RefreshTokenRequest(rotated.refreshToken())))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThat(tokenRevocationList.isRevoked("family")).isTrue();
+    }
+
+    @Test
+    void testRefresh_Exception_AccessToken() {
+        // Given
+        String accessToken = jwtUtil.issueToken("nikolai@gmail.com", "ROLE_USER");
+        when(messageSource.getMessage("exception.authentication.invalidRefreshToken", null, Locale.getDefault()))
+                .thenReturn("Exception message");
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.refresh(new RefreshTokenRequest(accessToken)))
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage("Exception message");
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void testLogout() {
+        // Given
+        String accessToken = jwtUtil.issueToken("nikolai@gmail.com", "ROLE_USER");
+        String refreshToken = jwtUtil.issueRefreshToken("nikolai@gmail.com", "family");
+
+        // When
+        underTest.logout(new RefreshTokenRequest(refreshToken), accessToken);
+
+        // Then
+        assertThat(tokenRevocationList.isRevoked("family")).isTrue();
+        assertThat(tokenRevocationList.isRevoked(jwtUtil.verify(accessToken).id())).isTrue();
+    }
+}
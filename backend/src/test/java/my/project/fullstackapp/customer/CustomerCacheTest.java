@@ -0,0 +1,143 @@
+package my.project.fullstackapp.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerCacheTest {
+
+    private CustomerCache underTest;
+    private InMemoryCustomerCacheTier secondTier;
+    private SimpleMeterRegistry meterRegistry;
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final CachedCustomer cachedCustomer = new CachedCustomer(
+            new CustomerDTO(1, "Nikolai", "nikolai@gmail.com", 28, Gender.MALE, null),
+            new CustomerVersion(1, 0L, Instant.now()));
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<Integer, Optional<CachedCustomer>> loader = customerId -> {
+        loads.incrementAndGet();
+        return customerId == 1 ? Optional.of(cachedCustomer) : Optional.empty();
+    };
+
+    @BeforeEach
+    void setUp() {
+        secondTier = new InMemoryCustomerCacheTier(new CustomerCacheProperties(), nanos::get);
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new CustomerCache(new CustomerCacheProperties(), Optional.of(secondTier), meterRegistry);
+    }
+
+    @Test
+    void testGet_LoadsOnceAndRecordsMetrics() {
+        // When
+        Optional<CachedCustomer> first = underTest.get(1, loader);
+        Optional<CachedCustomer> second = underTest.get(1, loader);
+
+        // Then
+        assertThat(first).contains(cachedCustomer);
+        assertThat(second).contains(cachedCustomer);
+        assertThat(loads).hasValue(1);
+        assertThat(secondTier.get(1)).contains(cachedCustomer);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "customers").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.second.tier.gets").tag("result", "miss")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testGet_FromSecondTier() {
+        // Given
+        secondTier.put(1, cachedCustomer);
+
+        // When
+        Optional<CachedCustomer> actual = underTest.get(1, loader);
+
+        // Then
+        assertThat(actual).contains(cachedCustomer);
+        assertThat(loads).hasValue(0);
+        assertThat(meterRegistry.get("cache.second.tier.gets").tag("result", "hit")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testGet_MissingIsNotCached() {
+        // When
+        underTest.get(2, loader);
+        Optional<CachedCustomer> actual = underTest.get(2, loader);
+
+        // Then
+        assertThat(actual).isEmpty();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void testEvict() {
+        // Given
+        underTest.get(1, loader);
+
+        // When
+        underTest.evict(1);
+        underTest.get(1, loader);
+
+        // Then
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void testEvict_DuringLoad_DoesNotLeaveLoadedRowInSecondTier() throws Exception {
+        // Given
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Optional<CachedCustomer>> load = CompletableFuture.supplyAsync(() ->
+                underTest.get(1, customerId -> {
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return Optional.of(cachedCustomer);
+                }));
+        loading.await();
+
+        Thread evict = new Thread(() -> underTest.evict(1));
+        evict.start();
+        while (evict.getState() != Thread.State.BLOCKED && evict.getState() != Thread.State.WAITING
+                && evict.isAlive()) {
+            Thread.onSpinWait();
+        }
+
+        // When
+        release.countDown();
+        load.get();
+        evict.join();
+
+        // Then
+        assertThat(secondTier.get(1)).isEmpty();
+        underTest.get(1, loader);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void testSecondTier_ExpiresAfterWrite() {
+        // Given
+        secondTier.put(1, cachedCustomer);
+
+        // When
+        nanos.addAndGet(new CustomerCacheProperties().getSecondTierExpireAfterWrite().plus(Duration.ofSeconds(1)).toNanos());
+
+        // Then
+        assertThat(secondTier.get(1)).isEmpty();
+    }
+}
@@ -8,6 +8,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.test.context.ActiveProfiles;
@@ -17,6 +19,8 @@ import org.testcontainers.shaded.com.google.common.io.Files;
 import reactor.core.publisher.Mono;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -59,15 +63,15 @@ class CustomerControllerTest {
 
         // get all customers
         List<CustomerDTO> allCustomers = webTestClient.get()
-                .uri(CUSTOMERS_PATH)
+                .uri(CUSTOMERS_PATH + "?sort=id&direction=desc")
                 .accept(MediaType.APPLICATION_JSON)
                 .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
                 .exchange()
                 .expectStatus().isOk()
-                .expectBodyList(new ParameterizedTypeReference<CustomerDTO>() {
-                })
+                .expectBody(CustomerPage.class)
                 .returnResult()
-                .getResponseBody();
+                .getResponseBody()
+                .customers();
 
         // get customer by id
         Integer customerId = allCustomers.stream()
@@ -93,6 +97,86 @@ class CustomerControllerTest {
                 .isEqualTo(expectedCustomer);
     }
 
+    @Test
+    void testGetCustomer_NotModified() {
+        // create registration request
+        Name fakerName = FAKER.name();
+        String name = fakerName.fullName();
+        String email = fakerName.firstName() + "." + fakerName.lastName() + "@foobar.com";
+        Integer age = RANDOM.nextInt(18, 100);
+        String password = FAKER.internet().password();
+        Gender gender = Gender.values()[RANDOM.nextInt(Gender.values().length)];
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(name, email, password, age, gender);
+
+        // send a POST request
+        String jwtToken = webTestClient.post()
+                .uri(CUSTOMERS_PATH)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Void.class)
+                .getResponseHeaders().get(AUTHORIZATION).get(0);
+
+        // get customer id
+        Integer customerId = webTestClient.get()
+                .uri(CUSTOMERS_PATH + "?sort=id&direction=desc")
+                .accept(MediaType.APPLICATION_JSON)
+                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(CustomerPage.class)
+                .returnResult()
+                .getResponseBody()
+                .customers()
+                .stream()
+                .filter(customer -> customer.email().equals(email))
+                .map(CustomerDTO::id)
+                .findFirst()
+                .orElseThrow();
+
+        // get customer and remember its ETag
+        String eTag = webTestClient.get()
+                .uri(CUSTOMERS_PATH + "/{id}", customerId)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(LAST_MODIFIED)
+                .returnResult(CustomerDTO.class)
+                .getResponseHeaders()
+                .getETag();
+
+        // poll with the ETag
+        webTestClient.get()
+                .uri(CUSTOMERS_PATH + "/{id}", customerId)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
+                .header(IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+
+        // update customer, the ETag no longer matches
+        webTestClient.put()
+                .uri(CUSTOMERS_PATH + "/{id}", customerId)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerUpdateRequest(name + "?", null, null, null, null)), CustomerUpdateRequest.class)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get()
+                .uri(CUSTOMERS_PATH + "/{id}", customerId)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
+                .header(IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
     @Test
     void testUpdateCustomer() {
         // create registration request
@@ -118,15 +202,15 @@ class CustomerControllerTest {
 
         // get all customers
         List<CustomerDTO> allCustomers = webTestClient.get()
-                .uri(CUSTOMERS_PATH)
+                .uri(CUSTOMERS_PATH + "?sort=id&direction=desc")
                 .accept(MediaType.APPLICATION_JSON)
                 .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
                 .exchange()
                 .expectStatus().isOk()
-                .expectBodyList(new ParameterizedTypeReference<CustomerDTO>() {
-                })
+                .expectBody(CustomerPage.class)
                 .returnResult()
-                .getResponseBody();
+                .getResponseBody()
+                .customers();
 
         // get customer by id
         Integer customerId = allCustomers.stream()
@@ -201,21 +285,21 @@ class CustomerControllerTest {
                 .getResponseHeaders().get(AUTHORIZATION).get(0);
 
         // get all customers
-        List<Customer> allCustomers = webTestClient.get()
-                .uri(CUSTOMERS_PATH)
+        List<CustomerDTO> allCustomers = webTestClient.get()
+                .uri(CUSTOMERS_PATH + "?sort=id&direction=desc")
                 .accept(MediaType.APPLICATION_JSON)
                 .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
                 .exchange()
                 .expectStatus().isOk()
-                .expectBodyList(new ParameterizedTypeReference<Customer>() {
-                })
+                .expectBody(CustomerPage.class)
                 .returnResult()
-                .getResponseBody();
+                .getResponseBody()
+                .customers();
 
         // get customer by id
         Integer customerId = allCustomers.stream()
-                .filter(c -> c.getEmail().equals(email))
-                .map(Customer::getId)
+                .filter(c -> c.email().equals(email))
+                .map(CustomerDTO::id)
                 .findFirst()
                 .orElseThrow();
 
@@ -236,6 +320,89 @@ class CustomerControllerTest {
                 .expectStatus().isNotFound();
     }
 
+    @Test
+    void testRegisterCustomers() {
+        // create registration request
+        Name fakerName = FAKER.name();
+        String name = fakerName.fullName();
+        String email = fakerName.firstName() + "." + fakerName.lastName() + "@foobar.com";
+        Integer age = RANDOM.nextInt(18, 100);
+        String password = FAKER.internet().password();
+        Gender gender = Gender.values()[RANDOM.nextInt(Gender.values().length)];
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(name, email, password, age, gender);
+
+        // send a POST request
+        String jwtToken = webTestClient.post()
+                .uri(CUSTOMERS_PATH)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Void.class)
+                .getResponseHeaders().get(AUTHORIZATION).get(0);
+
+        // send a bulk POST request with a new and an already registered email
+        String bulkEmail = "bulk." + email;
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest(name, bulkEmail, password, age, gender),
+                request
+        );
+
+        List<CustomerBulkResult> results = webTestClient.post()
+                .uri(CUSTOMERS_PATH + "/bulk")
+                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(requests)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(CustomerBulkResult.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(results).extracting(CustomerBulkResult::email).containsExactly(bulkEmail, email);
+        assertThat(results).extracting(CustomerBulkResult::status)
+                .containsExactly(CustomerBulkStatus.CREATED, CustomerBulkStatus.CONFLICT);
+        assertThat(results.get(0).id()).isNotNull();
+    }
+
+    @Test
+    void testExportCustomers() {
+        // create registration request
+        Name fakerName = FAKER.name();
+        String name = fakerName.fullName();
+        String email = fakerName.firstName() + "." + fakerName.lastName() + "@foobar.com";
+        Integer age = RANDOM.nextInt(18, 100);
+        String password = FAKER.internet().password();
+        Gender gender = Gender.values()[RANDOM.nextInt(Gender.values().length)];
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(name, email, password, age, gender);
+
+        // send a POST request
+        String jwtToken = webTestClient.post()
+                .uri(CUSTOMERS_PATH)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Void.class)
+                .getResponseHeaders().get(AUTHORIZATION).get(0);
+
+        // export customers
+        String export = webTestClient.get()
+                .uri(CUSTOMERS_PATH + "/export?format=ndjson")
+                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType("application/x-ndjson;charset=UTF-8")
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(export).contains("\"email\":\"%s\"".formatted(email));
+    }
+
     @Test
     void testUpdateCustomerProfileImage_getCustomerProfileImage() throws IOException {
         // Given
@@ -261,15 +428,15 @@ class CustomerControllerTest {
 
         // get all customers
         List<CustomerDTO> allCustomers = webTestClient.get()
-                .uri(CUSTOMERS_PATH)
+                .uri(CUSTOMERS_PATH + "?sort=id&direction=desc")
                 .accept(MediaType.APPLICATION_JSON)
                 .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
                 .exchange()
                 .expectStatus().isOk()
-                .expectBodyList(new ParameterizedTypeReference<CustomerDTO>() {
-                })
+                .expectBody(CustomerPage.class)
                 .returnResult()
-                .getResponseBody();
+                .getResponseBody()
+                .customers();
 
         // get customer by id
         CustomerDTO customerDTO = allCustomers.stream()
@@ -315,6 +482,9 @@ class CustomerControllerTest {
                 .accept(MediaType.IMAGE_JPEG)
                 .exchange()
                 .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.IMAGE_JPEG)
+                .expectHeader().valueEquals("X-Content-Type-Options", "nosniff")
+                .expectHeader().contentLength(image.contentLength())
                 .expectBody(byte[].class)
                 .returnResult()
                 .getResponseBody();
@@ -322,5 +492,37 @@ class CustomerControllerTest {
         byte[] actual = Files.toByteArray(image.getFile());
 
         assertThat(actual).isEqualTo(downloadedProfileImage);
+
+        // download the first 100 bytes of customerProfileImage
+        byte[] downloadedRange = webTestClient.get()
+                .uri(CUSTOMERS_PATH + "/{customerId}/profile-image", customerDTO.id())
+                .header(AUTHORIZATION, String.format("Bearer %s", jwtToken))
+                .header(RANGE, "bytes=0-99")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+                .expectHeader().contentLength(100)
+                .expectHeader().valueEquals(CONTENT_RANGE, "bytes 0-99/" + actual.length)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(downloadedRange).isEqualTo(Arrays.copyOf(actual, 100));
+
+        // the versioned URL is immutable and revalidates to 304 by content hash
+        String eTag = webTestClient.get()
+                .uri(profileImage)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                .expectBody(byte[].class).isEqualTo(actual)
+                .returnResult()
+                .getResponseHeaders().getETag();
+
+        webTestClient.get()
+                .uri(profileImage)
+                .header(IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
     }
 }
\ No newline at end of file
@@ -0,0 +1,151 @@
+package my.project.fullstackapp.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import my.project.fullstackapp.exception.RequestValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerExportServiceTest {
+
+    private CustomerExportService underTest;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private MessageSource messageSource;
+    @Mock
+    private ResultSet resultSet;
+    private final CustomerDTOMapper customerDTOMapper = new CustomerDTOMapper();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerExportService(jdbcTemplate, customerDTOMapper, objectMapper, messageSource);
+    }
+
+    @Test
+    void testExportCustomers_Ndjson() throws Exception {
+        // Given
+        givenOneCustomerRow("Nikolai", "nikolai@gmail.com");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        underTest.exportCustomers(CustomerExportFormat.NDJSON, CustomerField.ALL, outputStream);
+
+        // Then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(1);
+        assertThat(objectMapper.readValue(lines[0], CustomerDTO.class)).isEqualTo(
+                new CustomerDTO(1, "Nikolai", "nikolai@gmail.com", 28, Gender.MALE, null, List.of("ROLE_USER")));
+    }
+
+    @Test
+    void testExportCustomers_Csv() throws Exception {
+        // Given
+        givenOneCustomerRow("Khriapov, Nikolai", "nikolai@gmail.com");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        underTest.exportCustomers(CustomerExportFormat.CSV, CustomerField.ALL, outputStream);
+
+        // Then
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,name,email,age,gender,profileImage,roles\n" +
+                        "1,\"Khriapov, Nikolai\",nikolai@gmail.com,28,MALE,,ROLE_USER\n");
+    }
+
+    @Test
+    void testExportCustomers_Csv_NeutralisesFormulas() throws Exception {
+        // Given
+        givenOneCustomerRow("=HYPERLINK(\"http://evil\",\"x\")", "@nikolai@gmail.com");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        underTest.exportCustomers(CustomerExportFormat.CSV, CustomerField.ALL, outputStream);
+
+        // Then
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,name,email,age,gender,profileImage,roles\n" +
+                        "1,\"'=HYPERLINK(\"\"http://evil\"\",\"\"x\"\")\",'@nikolai@gmail.com,28,MALE,,ROLE_USER\n");
+    }
+
+    @Test
+    void testToCsvLine_NeutralisesFormulaPrefixes() {
+        // Given
+        CustomerDTO customerDTO = new CustomerDTO(1, "+Nikolai", "-nikolai@gmail.com", -1, Gender.MALE, null, List.of());
+
+        // When
+        String actual = CustomerExportService.toCsvLine(customerDTO, CustomerField.fromParameter("name,email,age"));
+
+        // Then
+        assertThat(actual).isEqualTo("1,'+Nikolai,'-nikolai@gmail.com,-1\n");
+    }
+
+    @Test
+    void testExportCustomers_Fields() throws Exception {
+        // Given
+        when(resultSet.getInt("id")).thenReturn(1);
+        when(resultSet.getObject("name", String.class)).thenReturn("Nikolai");
+        when(resultSet.getRow()).thenReturn(1);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+
+        // When
+        underTest.exportCustomers(CustomerExportFormat.NDJSON, CustomerField.fromParameter("name"), ndjson);
+        underTest.exportCustomers(CustomerExportFormat.CSV, CustomerField.fromParameter("name"), csv);
+
+        // Then
+        assertThat(ndjson.toString(StandardCharsets.UTF_8)).isEqualTo("{\"id\":1,\"name\":\"Nikolai\"}\n");
+        assertThat(csv.toString(StandardCharsets.UTF_8)).isEqualTo("id,name\n1,Nikolai\n");
+        verify(resultSet, never()).getObject(eq("email"), any(Class.class));
+    }
+
+    @Test
+    void testGetExportFormat_Exception_UnknownFormat() {
+        // Given
+        when(messageSource.getMessage("exception.customer.invalidExportFormat", null, Locale.getDefault()))
+                .thenReturn("Exception message");
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getExportFormat("xml"))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Exception message");
+    }
+
+    private void givenOneCustomerRow(String name, String email) throws Exception {
+        when(resultSet.getInt("id")).thenReturn(1);
+        when(resultSet.getObject("name", String.class)).thenReturn(name);
+        when(resultSet.getObject("email", String.class)).thenReturn(email);
+        when(resultSet.getObject("age", Integer.class)).thenReturn(28);
+        when(resultSet.getObject("gender", String.class)).thenReturn("MALE");
+        when(resultSet.getObject("profile_image", String.class)).thenReturn(null);
+        when(resultSet.getRow()).thenReturn(1);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+}
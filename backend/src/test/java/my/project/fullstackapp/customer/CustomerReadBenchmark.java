@@ -0,0 +1,117 @@
+package my.project.fullstackapp.customer;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/*
+ * Entity hydration + CustomerDTOMapper (before) versus JPQL constructor projections (after)
+ * against a Testcontainers Postgres. Run with the benchmark profile; the gc profiler reports
+ * gc.alloc.rate.norm, the allocated bytes per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerReadBenchmark {
+
+    private static final int CUSTOMERS = 10_000;
+    private static final int PAGE_SIZE = 500;
+
+    private PostgreSQLContainer<?> postgreSQLContainer;
+    private ConfigurableApplicationContext context;
+    private CustomerRepository customerRepository;
+    private final CustomerDTOMapper customerDTOMapper = new CustomerDTOMapper();
+
+    @Setup
+    public void setUp() {
+        postgreSQLContainer = new PostgreSQLContainer<>("postgres:15.1");
+        postgreSQLContainer.start();
+
+        context = new SpringApplicationBuilder(BenchmarkConfiguration.class).run(
+                "--spring.datasource.url=" + postgreSQLContainer.getJdbcUrl(),
+                "--spring.datasource.username=" + postgreSQLContainer.getUsername(),
+                "--spring.datasource.password=" + postgreSQLContainer.getPassword(),
+                "--spring.main.web-application-type=none",
+                "--logging.level.root=warn"
+        );
+        customerRepository = context.getBean(CustomerRepository.class);
+
+        context.getBean(JdbcTemplate.class).batchUpdate(
+                "INSERT INTO customer (id, name, email, password, age, gender) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)",
+                IntStream.range(0, CUSTOMERS)
+                        .mapToObj(i -> new Object[]{
+                                i + 1,
+                                "Customer " + i,
+                                "customer" + i + "@foobar.com",
+                                "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3Pr3Ko1G5OZK5xY8s1pEZfO",
+                                18 + i % 80,
+                                i % 2 == 0 ? "MALE" : "FEMALE"})
+                        .toList());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        postgreSQLContainer.stop();
+    }
+
+    @Benchmark
+    public CustomerDTO getCustomer_entity() {
+        return customerRepository.findById(randomId())
+                .map(customerDTOMapper)
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public CustomerDTO getCustomer_projection() {
+        return customerRepository.findCustomerDTOById(randomId())
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public List<CustomerDTO> getCustomersPage_entity() {
+        return customerRepository.findAll(PageRequest.of(0, PAGE_SIZE, Sort.by("id")))
+                .map(customerDTOMapper)
+                .getContent();
+    }
+
+    @Benchmark
+    public List<CustomerDTO> getCustomersPage_projection() {
+        return customerRepository.findCustomersPage(
+                CustomerSearchRequest.ALL, CustomerSort.ID, Sort.Direction.ASC, null, PAGE_SIZE, CustomerField.ALL);
+    }
+
+    @Benchmark
+    public List<CustomerDTO> getCustomersPage_projectionIdAndName() {
+        return customerRepository.findCustomersPage(CustomerSearchRequest.ALL, CustomerSort.ID, Sort.Direction.ASC,
+                null, PAGE_SIZE, CustomerField.fromParameter("id,name"));
+    }
+
+    private int randomId() {
+        return ThreadLocalRandom.current().nextInt(1, CUSTOMERS + 1);
+    }
+
+    @Configuration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Customer.class)
+    @EnableJpaRepositories(basePackageClasses = CustomerRepository.class)
+    static class BenchmarkConfiguration {
+    }
+}
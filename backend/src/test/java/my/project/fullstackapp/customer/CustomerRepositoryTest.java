@@ -2,23 +2,36 @@ package my.project.fullstackapp.customer;
 
 import com.github.javafaker.Faker;
 import my.project.fullstackapp.AbstractTestcontainersTest;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "my.project.fullstackapp.customer.CustomerRepositoryTest$RecordingStatementInspector")
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 class CustomerRepositoryTest extends AbstractTestcontainersTest {
 
     @Autowired
     private CustomerRepository underTest;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
     private static final Faker FAKER = new Faker();
     private static final Random RANDOM = new Random();
@@ -88,4 +101,216 @@ class CustomerRepositoryTest extends AbstractTestcontainersTest {
 
         assertThat(actual).isFalse();
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFindExistingEmails() {
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.save(new Customer(
+                FAKER.name().fullName(),
+                email,
+                FAKER.internet().password(),
+                20,
+                Gender.values()[RANDOM.nextInt(Gender.values().length)]
+        ));
+
+        var actual = underTest.findExistingEmails(List.of(email, "missing-" + email));
+
+        assertThat(actual).containsExactly(email);
+    }
+
+    @Test
+    void testFindCustomerDTOsByIds() {
+        Customer customer = underTest.save(new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                FAKER.internet().password(),
+                20,
+                Gender.values()[RANDOM.nextInt(Gender.values().length)]
+        ));
+
+        var actual = underTest.findCustomerDTOsByIds(List.of(customer.getId(), -1));
+
+        assertThat(actual).extracting(CustomerDTO::id).containsExactly(customer.getId());
+    }
+
+    @Test
+    void testFindCustomerDTOById() {
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                FAKER.internet().password(),
+                20,
+                Gender.values()[RANDOM.nextInt(Gender.values().length)]
+        );
+
+        underTest.save(customer);
+
+        var actual = underTest.findCustomerDTOById(customer.getId());
+
+        assertThat(actual).contains(new CustomerDTO(
+                customer.getId(), customer.getName(), email, 20, customer.getGender(), null));
+    }
+
+    @Test
+    void testFindCachedCustomerById() {
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                FAKER.internet().password(),
+                20,
+                Gender.values()[RANDOM.nextInt(Gender.values().length)]
+        );
+
+        underTest.saveAndFlush(customer);
+
+        var actual = underTest.findCachedCustomerById(customer.getId());
+
+        assertThat(actual).hasValueSatisfying(cachedCustomer -> {
+            assertThat(cachedCustomer.customer()).isEqualTo(new CustomerDTO(
+                    customer.getId(), customer.getName(), email, 20, customer.getGender(), null));
+            assertThat(cachedCustomer.version().version()).isEqualTo(customer.getVersion());
+            assertThat(cachedCustomer.version().lastModified()).isNotNull();
+        });
+    }
+
+    @Test
+    void testFindCustomerPrincipalByEmail() {
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                "{bcrypt}hash",
+                20,
+                Gender.values()[RANDOM.nextInt(Gender.values().length)]
+        );
+
+        underTest.saveAndFlush(customer);
+
+        var actual = underTest.findCustomerPrincipalByEmail(email);
+
+        assertThat(actual).hasValueSatisfying(principal -> {
+            assertThat(principal.customer()).isEqualTo(new CustomerDTO(
+                    customer.getId(), customer.getName(), email, 20, customer.getGender(), null));
+            assertThat(principal.getPassword()).isEqualTo("{bcrypt}hash");
+        });
+    }
+
+    @Test
+    void testFindCustomersPage() {
+        for (int i = 0; i < 5; i++) {
+            underTest.save(new Customer(
+                    "Customer " + i,
+                    FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                    FAKER.internet().password(),
+                    20 + i % 2,
+                    Gender.values()[RANDOM.nextInt(Gender.values().length)]
+            ));
+        }
+
+        List<CustomerDTO> firstPage = underTest.findCustomersPage(CustomerSearchRequest.ALL, CustomerSort.AGE, Sort.Direction.ASC, null, 3, CustomerField.ALL);
+        CustomerCursor cursor = CustomerCursor.after(firstPage.get(2), CustomerSort.AGE, Sort.Direction.ASC);
+        List<CustomerDTO> secondPage = underTest.findCustomersPage(CustomerSearchRequest.ALL, CustomerSort.AGE, Sort.Direction.ASC, cursor, 3, CustomerField.ALL);
+
+        assertThat(firstPage).extracting(CustomerDTO::age).containsExactly(20, 20, 20);
+        assertThat(secondPage).extracting(CustomerDTO::age).containsExactly(21, 21);
+        assertThat(firstPage).extracting(CustomerDTO::id).isSorted();
+        assertThat(secondPage).extracting(CustomerDTO::id).isSorted();
+    }
+
+    @Test
+    void testFindCustomersPage_Search() {
+        String email = "search-" + UUID.randomUUID() + "@foobar.com";
+        underTest.save(new Customer("Nikolai Khriapov", email, FAKER.internet().password(), 28, Gender.MALE));
+        underTest.save(new Customer("Nikolai Other", "other-" + email, FAKER.internet().password(), 40, Gender.MALE));
+        underTest.save(new Customer("Anna", "anna-" + email, FAKER.internet().password(), 28, Gender.FEMALE));
+
+        var actual = underTest.findCustomersPage(
+                new CustomerSearchRequest("nikolai", "SEARCH-", 20, 30, Gender.MALE),
+                CustomerSort.ID, Sort.Direction.ASC, null, 10, CustomerField.ALL);
+
+        assertThat(actual).extracting(CustomerDTO::email).containsExactly(email);
+    }
+
+    @Test
+    void testFindCustomersPage_Fields() {
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = underTest.save(new Customer("Nikolai", email, FAKER.internet().password(), 28, Gender.MALE));
+
+        var actual = underTest.findCustomersPage(CustomerSearchRequest.ALL, CustomerSort.AGE, Sort.Direction.ASC,
+                null, 10, CustomerField.fromParameter("name"));
+
+        assertThat(actual).containsExactly(new CustomerDTO(customer.getId(), "Nikolai", null, 28, null, null));
+    }
+
+    @Test
+    void testSearchPredicatesUseIndexes() {
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            customers.add(new Customer("Customer " + i, "customer-" + i + "@example.com", "password",
+                    18 + i % 60, Gender.values()[i % Gender.values().length]));
+        }
+        customers.add(new Customer("Nikolai", "nikolai@example.com", "password", 28, Gender.MALE));
+        underTest.saveAllAndFlush(customers);
+        jdbcTemplate.execute("ANALYZE customer");
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+        Customer cursorCustomer = customers.get(1000);
+
+        assertThat(explainPage(new CustomerSearchRequest("Nik", null, null, null, null),
+                CustomerSort.ID, null, "nik%", 10))
+                .contains("customer_name_prefix_idx");
+        assertThat(explainPage(new CustomerSearchRequest(null, "nikolai@", null, null, null),
+                CustomerSort.ID, null, "nikolai@%", 10))
+                .contains("customer_email_prefix_idx");
+        assertThat(explainPage(new CustomerSearchRequest(null, null, 20, 30, null),
+                CustomerSort.AGE, null, 20, 30, 10))
+                .contains("customer_age_id_idx");
+        assertThat(explainPage(new CustomerSearchRequest(null, null, 20, 30, Gender.MALE),
+                CustomerSort.AGE, null, 20, 30, Gender.MALE.name(), 10))
+                .contains("customer_gender_age_id_idx");
+        assertThat(explainPage(CustomerSearchRequest.ALL,
+                CustomerSort.NAME, new CustomerCursor(CustomerSort.NAME, Sort.Direction.ASC,
+                        cursorCustomer.getName(), cursorCustomer.getId()),
+                cursorCustomer.getName(), cursorCustomer.getName(), cursorCustomer.getId(), 10))
+                .contains("customer_name_id_idx");
+    }
+
+    /*
+     * EXPLAIN of the statement Hibernate generated for the page, with the values it binds in the
+     * order it binds them. Custom plans like the ones of the unnamed statements the driver sends.
+     */
+    private String explainPage(CustomerSearchRequest search, CustomerSort sort, CustomerCursor cursor,
+                               Object... parameters) {
+        RecordingStatementInspector.STATEMENTS.clear();
+        underTest.findCustomersPage(search, sort, Sort.Direction.ASC, cursor, 10, CustomerField.ALL);
+        String sql = RecordingStatementInspector.STATEMENTS.get(RecordingStatementInspector.STATEMENTS.size() - 1);
+        assertThat(StringUtils.countMatches(sql, '?')).as(sql).isEqualTo(parameters.length);
+
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (int i = 0; i < parameters.length; i++) {
+                    statement.setObject(i + 1, parameters[i]);
+                }
+                List<String> plan = new ArrayList<>();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.add(resultSet.getString(1));
+                    }
+                }
+                return String.join("\n", plan);
+            }
+        });
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
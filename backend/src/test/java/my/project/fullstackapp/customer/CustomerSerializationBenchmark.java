@@ -0,0 +1,63 @@
+package my.project.fullstackapp.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/*
+ * Response building of the customer endpoints: entity to DTO mapping and Jackson serialization of
+ * a page of DTOs, with all fields and with a sparse fieldset.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerSerializationBenchmark {
+
+    @Param({"50", "500"})
+    private int pageSize;
+
+    private final CustomerDTOMapper customerDTOMapper = new CustomerDTOMapper();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Customer customer;
+    private List<CustomerDTO> page;
+    private ObjectWriter allFieldsWriter;
+    private ObjectWriter idAndNameWriter;
+
+    @Setup
+    public void setUp() {
+        customer = customer(1);
+        page = IntStream.rangeClosed(1, pageSize)
+                .mapToObj(CustomerSerializationBenchmark::customer)
+                .map(customerDTOMapper)
+                .toList();
+        allFieldsWriter = objectMapper.writer(CustomerField.filterProvider(CustomerField.ALL));
+        idAndNameWriter = objectMapper.writer(CustomerField.filterProvider(CustomerField.fromParameter("id,name")));
+    }
+
+    @Benchmark
+    public CustomerDTO mapCustomer() {
+        return customerDTOMapper.apply(customer);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return allFieldsWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializePage_idAndName() throws Exception {
+        return idAndNameWriter.writeValueAsBytes(page);
+    }
+
+    private static Customer customer(int id) {
+        return new Customer(id, "Customer " + id, "customer" + id + "@foobar.com", "password",
+                18 + id % 80, id % 2 == 0 ? Gender.MALE : Gender.FEMALE, "user-" + id + "/profile-image.jpg");
+    }
+}
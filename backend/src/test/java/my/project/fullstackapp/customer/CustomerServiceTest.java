@@ -1,28 +1,45 @@
 package my.project.fullstackapp.customer;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import my.project.fullstackapp.exception.DuplicateResourceException;
 import my.project.fullstackapp.exception.RequestValidationException;
 import my.project.fullstackapp.exception.ResourceNotFoundException;
+import my.project.fullstackapp.exception.ServiceUnavailableException;
 import my.project.fullstackapp.filestorage.FileStorageProperties;
 import my.project.fullstackapp.filestorage.FileStorageService;
+import my.project.fullstackapp.filestorage.ProfileImageType;
+import my.project.fullstackapp.filestorage.StoredFile;
+import my.project.fullstackapp.security.BoundedPasswordEncoder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
 import org.springframework.mock.web.MockMultipartFile;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -35,7 +52,7 @@ class CustomerServiceTest {
     @Mock
     private CustomerRepository customerRepository;
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private BoundedPasswordEncoder passwordEncoder;
     private final CustomerDTOMapper customerDTOMapper = new CustomerDTOMapper();
     @Mock
     private FileStorageService fileStorageService;
@@ -43,29 +60,160 @@ class CustomerServiceTest {
     private FileStorageProperties fileStorageProperties;
     @Mock
     private MessageSource messageSource;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     private static final String PROFILE_IMAGE_DIRECTORY = "src/test/resources/garbage/static/images/user-%s/profile-image/";
-    private static final String PROFILE_IMAGE_NAME = "%s-profile-image%s";
+    private static final String PROFILE_IMAGE_NAME = "%s%s";
     private static final Random RANDOM = new Random();
+    private static final byte[] JPEG_BYTES = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 0x10, 'J', 'F', 'I', 'F', 0};
 
     @BeforeEach
     void setUp() {
         underTest = new CustomerService(
                 customerRepository,
-                customerDTOMapper,
                 passwordEncoder,
                 fileStorageService,
-                messageSource
+                messageSource,
+                new CustomerCache(new CustomerCacheProperties(), Optional.empty(), new SimpleMeterRegistry()),
+                eventPublisher
         );
     }
 
     @Test
-    void testGetAllCustomers() {
+    void testGetCustomers() {
+        // Given
+        CustomerDTO customerDTO = new CustomerDTO(1, "Nikolai", "nikolai@gmail.com", 28, Gender.MALE, null);
+        when(customerRepository.findVersionedCustomersPage(CustomerSearchRequest.ALL, CustomerSort.ID, Sort.Direction.ASC, null, 51, CustomerField.ALL))
+                .thenReturn(List.of(versioned(customerDTO)));
+
+        // When
+        CustomerPage actual = underTest.getCustomers(
+                underTest.getPageRequest(CustomerSearchRequest.ALL, "id", "asc", null, null, null)).page();
+
+        // Then
+        assertThat(actual.customers()).containsExactly(customerDTO);
+        assertThat(actual.next()).isNull();
+    }
+
+    @Test
+    void testGetCustomers_NextCursor() {
+        // Given
+        CustomerDTO customer1 = new CustomerDTO(1, "Anna", "anna@gmail.com", 28, Gender.FEMALE, null);
+        CustomerDTO customer2 = new CustomerDTO(2, "Nikolai", "nikolai@gmail.com", 28, Gender.MALE, null);
+        when(customerRepository.findVersionedCustomersPage(CustomerSearchRequest.ALL, CustomerSort.NAME, Sort.Direction.ASC, null, 2, CustomerField.ALL))
+                .thenReturn(List.of(versioned(customer1), versioned(customer2)));
+
+        // When
+        CustomerPage actual = underTest.getCustomers(
+                underTest.getPageRequest(CustomerSearchRequest.ALL, "name", "asc", 1, null, null)).page();
+
+        // Then
+        assertThat(actual.customers()).containsExactly(customer1);
+        assertThat(CustomerCursor.decode(actual.next(), CustomerSort.NAME, Sort.Direction.ASC))
+                .isEqualTo(new CustomerCursor(CustomerSort.NAME, Sort.Direction.ASC, "Anna", 1));
+    }
+
+    @Test
+    void testGetCustomers_Exception_InvalidSort() {
+        // Given
+        when(messageSource.getMessage("exception.customer.invalidPageRequest", null, Locale.getDefault()))
+                .thenReturn("Exception message");
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getPageRequest(CustomerSearchRequest.ALL, "password", "asc", null, null, null))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Exception message");
+        verifyNoInteractions(customerRepository);
+    }
+
+    @Test
+    void testSearchCustomers() {
+        // Given
+        CustomerSearchRequest search = new CustomerSearchRequest("Nik", null, 20, 30, Gender.MALE);
+        CustomerDTO customerDTO = new CustomerDTO(1, "Nikolai", "nikolai@gmail.com", 28, Gender.MALE, null);
+        when(customerRepository.findVersionedCustomersPage(search, CustomerSort.AGE, Sort.Direction.DESC, null, 11, CustomerField.ALL))
+                .thenReturn(List.of(versioned(customerDTO)));
+
+        // When
+        CustomerPage actual = underTest.getCustomers(
+                underTest.getPageRequest(search, "age", "desc", 10, null, null)).page();
+
+        // Then
+        assertThat(actual).isEqualTo(new CustomerPage(List.of(customerDTO), null));
+    }
+
+    @Test
+    void testSearchCustomers_Exception_InvalidAgeRange() {
+        // Given
+        CustomerSearchRequest search = new CustomerSearchRequest(null, null, 30, 20, null);
+        when(messageSource.getMessage("exception.customer.invalidSearchRequest", null, Locale.getDefault()))
+                .thenReturn("Exception message");
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getPageRequest(search, "id", "asc", null, null, null))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Exception message");
+        verifyNoInteractions(customerRepository);
+    }
+
+    @Test
+    void testGetCustomersETag() {
+        // Given
+        CustomerPageRequest pageRequest =
+                underTest.getPageRequest(CustomerSearchRequest.ALL, "id", "asc", 1, null, null);
+        Instant lastModified = Instant.now();
+        when(customerRepository.findCustomerVersionsPage(CustomerSearchRequest.ALL, CustomerSort.ID, Sort.Direction.ASC, null, 2))
+                .thenReturn(List.of(new CustomerVersion(1, 0L, lastModified)))
+                .thenReturn(List.of(new CustomerVersion(1, 0L, lastModified)))
+                .thenReturn(List.of(new CustomerVersion(1, 1L, lastModified)));
+
         // When
-        underTest.getAllCustomers();
+        String first = underTest.getCustomersETag(pageRequest);
+        String unchanged = underTest.getCustomersETag(pageRequest);
+        String updated = underTest.getCustomersETag(pageRequest);
+
+        // Then
+        assertThat(unchanged).isEqualTo(first);
+        assertThat(updated).isNotEqualTo(first);
+        verify(customerRepository, never()).findVersionedCustomersPage(any(), any(), any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void testGetCustomers_ETagMatchesVersionsOfSameRows() {
+        // Given
+        CustomerPageRequest pageRequest =
+                underTest.getPageRequest(CustomerSearchRequest.ALL, "id", "asc", 1, null, null);
+        CachedCustomer customer1 = versioned(new CustomerDTO(1, "Anna", "anna@gmail.com", 28, Gender.FEMALE, null));
+        CachedCustomer customer2 = versioned(new CustomerDTO(2, "Nikolai", "nikolai@gmail.com", 28, Gender.MALE, null));
+        when(customerRepository.findVersionedCustomersPage(CustomerSearchRequest.ALL, CustomerSort.ID, Sort.Direction.ASC, null, 2, CustomerField.ALL))
+                .thenReturn(List.of(customer1, customer2));
+        when(customerRepository.findCustomerVersionsPage(CustomerSearchRequest.ALL, CustomerSort.ID, Sort.Direction.ASC, null, 2))
+                .thenReturn(List.of(customer1.version(), customer2.version()));
+
+        // When
+        VersionedCustomerPage actual = underTest.getCustomers(pageRequest);
+
+        // Then
+        assertThat(actual.eTag()).isEqualTo(underTest.getCustomersETag(pageRequest));
+        assertThat(actual.page().customers()).containsExactly(customer1.customer());
+    }
+
+    @Test
+    void testGetCachedCustomer_Exception_CustomerNotFound() {
+        // Given
+        Integer customerId = 10;
+        when(customerRepository.findCachedCustomerById(customerId)).thenReturn(Optional.empty());
+        when(messageSource.getMessage("exception.customer.notFound", null, Locale.getDefault()))
+                .thenReturn("Exception message");
 
+        // When
         // Then
-        verify(customerRepository).findAll();
+        assertThatThrownBy(() -> underTest.getCachedCustomer(customerId))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Exception message");
     }
 
     @Test
@@ -80,9 +228,9 @@ class CustomerServiceTest {
                 28,
                 Gender.values()[RANDOM.nextInt(Gender.values().length)]
         );
-        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
-
         CustomerDTO expected = customerDTOMapper.apply(customer);
+        when(customerRepository.findCachedCustomerById(customerId))
+                .thenReturn(Optional.of(new CachedCustomer(expected, new CustomerVersion(customerId, 0L, Instant.now()))));
 
         // When
         CustomerDTO actual = underTest.getCustomer(10);
@@ -91,12 +239,53 @@ class CustomerServiceTest {
         assertThat(actual).isEqualTo(expected);
     }
 
+    @Test
+    void testGetCustomer_Cached() {
+        // Given
+        Integer customerId = 10;
+        CustomerDTO customerDTO = new CustomerDTO(customerId, "Nikolai", "nikolai@gmail.com", 28, Gender.MALE, null);
+        CustomerVersion customerVersion = new CustomerVersion(customerId, 0L, Instant.now());
+        when(customerRepository.findCachedCustomerById(customerId))
+                .thenReturn(Optional.of(new CachedCustomer(customerDTO, customerVersion)));
+
+        // When
+        CustomerVersion actualVersion = underTest.getCachedCustomer(customerId).version();
+        CustomerDTO actual = underTest.getCustomer(customerId);
+
+        // Then
+        assertThat(actualVersion).isEqualTo(customerVersion);
+        assertThat(actual).isEqualTo(customerDTO);
+        verify(customerRepository, times(1)).findCachedCustomerById(customerId);
+    }
+
+    @Test
+    void testGetCustomer_EvictedByDelete() {
+        // Given
+        Integer customerId = 10;
+        CustomerDTO customerDTO = new CustomerDTO(customerId, "Nikolai", "nikolai@gmail.com", 28, Gender.MALE, null);
+        when(customerRepository.findCachedCustomerById(customerId))
+                .thenReturn(Optional.of(new CachedCustomer(customerDTO, new CustomerVersion(customerId, 0L, Instant.now()))))
+                .thenReturn(Optional.empty());
+        when(customerRepository.findCustomerDTOById(customerId)).thenReturn(Optional.of(customerDTO));
+        when(messageSource.getMessage("exception.customer.notFound", null, Locale.getDefault()))
+                .thenReturn("Exception message");
+
+        // When
+        underTest.getCustomer(customerId);
+        underTest.deleteCustomer(customerId);
+
+        // Then
+        assertThatThrownBy(() -> underTest.getCustomer(customerId))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Exception message");
+    }
+
     @Test
     void testGetCustomer_Exception_CustomerNotFound() {
         // Given
         Integer customerId = 10;
 
-        when(customerRepository.findById(customerId)).thenReturn(Optional.empty());
+        when(customerRepository.findCachedCustomerById(customerId)).thenReturn(Optional.empty());
         when(messageSource.getMessage("exception.customer.notFound", null, Locale.getDefault()))
                 .thenReturn("Exception message");
 
@@ -117,7 +306,6 @@ class CustomerServiceTest {
                 27,
                 Gender.values()[RANDOM.nextInt(Gender.values().length)]
         );
-        when(customerRepository.existsCustomerByEmail(request.email())).thenReturn(false);
 
         String passwordHash = "$#JDKFSDSDdaklfjls";
         when(passwordEncoder.encode(request.password())).thenReturn(passwordHash);
@@ -127,7 +315,7 @@ class CustomerServiceTest {
 
         // Then
         ArgumentCaptor<Customer> argument = ArgumentCaptor.forClass(Customer.class);
-        verify(customerRepository).save(argument.capture());
+        verify(customerRepository).saveAndFlush(argument.capture());
 
         assertThat(argument.getValue().getId()).isNull();
         assertThat(argument.getValue().getName()).isEqualTo(request.name());
@@ -147,16 +335,153 @@ class CustomerServiceTest {
                 27,
                 Gender.values()[RANDOM.nextInt(Gender.values().length)]
         );
-        when(customerRepository.existsCustomerByEmail(request.email())).thenReturn(true);
+        when(customerRepository.saveAndFlush(any())).thenThrow(uniqueViolation());
         when(messageSource.getMessage("exception.authentication.emailAlreadyExists", null, Locale.getDefault()))
                 .thenReturn("Exception message");
 
         // When
+        // Then
         assertThatThrownBy(() -> underTest.createCustomer(request))
                 .isInstanceOf(DuplicateResourceException.class)
                 .hasMessage("Exception message");
+        verify(customerRepository, never()).existsCustomerByEmail(any());
+    }
+
+    @Test
+    void testCreateCustomer_Exception_OtherIntegrityViolation() {
+        // Given
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                "Nikolai", "nikolai@gmail.com", "password", 27, Gender.MALE);
+        DataIntegrityViolationException notNullViolation = new DataIntegrityViolationException("not null",
+                new SQLException("null value in column", "23502"));
+        when(customerRepository.saveAndFlush(any())).thenThrow(notNullViolation);
+
+        // When
         // Then
-        verify(customerRepository, never()).save(any());
+        assertThatThrownBy(() -> underTest.createCustomer(request))
+                .isSameAs(notNullViolation);
+    }
+
+    @Test
+    void testCreateCustomers() {
+        // Given
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("Nikolai", "nikolai@gmail.com", "password", 27, Gender.MALE),
+                new CustomerRegistrationRequest("Taken", "taken@gmail.com", "password", 30, Gender.FEMALE),
+                new CustomerRegistrationRequest("Nikolai", "nikolai@gmail.com", "password", 27, Gender.MALE),
+                new CustomerRegistrationRequest("Invalid", "invalid@gmail.com", null, 30, Gender.FEMALE)
+        );
+        when(customerRepository.findExistingEmails(any())).thenReturn(Set.of("taken@gmail.com"));
+        when(passwordEncoder.encodeAll(List.of("password")))
+                .thenReturn(List.of(CompletableFuture.completedFuture("$#JDKFSDSDdaklfjls")));
+        when(messageSource.getMessage("exception.authentication.emailAlreadyExists", null, Locale.getDefault()))
+                .thenReturn("Conflict message");
+        when(messageSource.getMessage("exception.customer.invalidRegistration", null, Locale.getDefault()))
+                .thenReturn("Invalid message");
+
+        // When
+        List<CustomerBulkResult> actual = underTest.createCustomers(requests);
+
+        // Then
+        ArgumentCaptor<List<Customer>> argument = ArgumentCaptor.forClass(List.class);
+        verify(customerRepository).saveAllAndFlush(argument.capture());
+        assertThat(argument.getValue())
+                .singleElement()
+                .satisfies(customer -> {
+                    assertThat(customer.getEmail()).isEqualTo("nikolai@gmail.com");
+                    assertThat(customer.getPassword()).isEqualTo("$#JDKFSDSDdaklfjls");
+                });
+
+        assertThat(actual).extracting(CustomerBulkResult::status).containsExactly(
+                CustomerBulkStatus.CREATED,
+                CustomerBulkStatus.CONFLICT,
+                CustomerBulkStatus.CONFLICT,
+                CustomerBulkStatus.INVALID);
+        assertThat(actual.get(1).message()).isEqualTo("Conflict message");
+        assertThat(actual.get(3).message()).isEqualTo("Invalid message");
+    }
+
+    @Test
+    void testCreateCustomers_ConcurrentlyTakenEmail_OnlyThatItemConflicts() {
+        // Given
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("Nikolai", "nikolai@gmail.com", "password", 27, Gender.MALE),
+                new CustomerRegistrationRequest("Raced", "raced@gmail.com", "secret", 30, Gender.FEMALE)
+        );
+        when(customerRepository.findExistingEmails(any()))
+                .thenReturn(Set.of())
+                .thenReturn(Set.of("raced@gmail.com"));
+        when(passwordEncoder.encodeAll(List.of("password", "secret"))).thenReturn(List.of(
+                CompletableFuture.completedFuture("$#JDKFSDSDdaklfjls"),
+                CompletableFuture.completedFuture("$#Secret")));
+        when(customerRepository.saveAllAndFlush(any()))
+                .thenThrow(uniqueViolation())
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(messageSource.getMessage("exception.authentication.emailAlreadyExists", null, Locale.getDefault()))
+                .thenReturn("Conflict message");
+
+        // When
+        List<CustomerBulkResult> actual = underTest.createCustomers(requests);
+
+        // Then
+        ArgumentCaptor<List<Customer>> argument = ArgumentCaptor.forClass(List.class);
+        verify(customerRepository, times(2)).saveAllAndFlush(argument.capture());
+        assertThat(argument.getAllValues().get(0)).hasSize(2);
+        assertThat(argument.getAllValues().get(1))
+                .singleElement()
+                .extracting(Customer::getEmail)
+                .isEqualTo("nikolai@gmail.com");
+
+        assertThat(actual).extracting(CustomerBulkResult::status).containsExactly(
+                CustomerBulkStatus.CREATED,
+                CustomerBulkStatus.CONFLICT);
+        assertThat(actual.get(1).message()).isEqualTo("Conflict message");
+    }
+
+    @Test
+    void testCreateCustomers_PasswordEncoderBusy() {
+        // Given
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("Nikolai", "nikolai@gmail.com", "password", 27, Gender.MALE),
+                new CustomerRegistrationRequest("Rejected", "rejected@gmail.com", "secret", 30, Gender.FEMALE)
+        );
+        when(customerRepository.findExistingEmails(any())).thenReturn(Set.of());
+        when(passwordEncoder.encodeAll(List.of("password", "secret"))).thenReturn(List.of(
+                CompletableFuture.completedFuture("$#JDKFSDSDdaklfjls"),
+                CompletableFuture.failedFuture(new ServiceUnavailableException("Busy message", Duration.ofSeconds(1)))));
+
+        // When
+        List<CustomerBulkResult> actual = underTest.createCustomers(requests);
+
+        // Then
+        ArgumentCaptor<List<Customer>> argument = ArgumentCaptor.forClass(List.class);
+        verify(customerRepository).saveAllAndFlush(argument.capture());
+        assertThat(argument.getValue())
+                .singleElement()
+                .extracting(Customer::getEmail)
+                .isEqualTo("nikolai@gmail.com");
+
+        assertThat(actual).extracting(CustomerBulkResult::status).containsExactly(
+                CustomerBulkStatus.CREATED,
+                CustomerBulkStatus.UNAVAILABLE);
+        assertThat(actual.get(1).email()).isEqualTo("rejected@gmail.com");
+        assertThat(actual.get(1).message()).isEqualTo("Busy message");
+    }
+
+    @Test
+    void testCreateCustomers_Exception_BulkLimitExceeded() {
+        // Given
+        List<CustomerRegistrationRequest> requests = Collections.nCopies(1001,
+                new CustomerRegistrationRequest("Nikolai", "nikolai@gmail.com", "password", 27, Gender.MALE));
+        when(messageSource.getMessage(eq("exception.customer.bulkLimitExceeded"), any(), eq(Locale.getDefault())))
+                .thenReturn("Exception message");
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.createCustomers(requests))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Exception message");
+        verify(customerRepository, never()).saveAllAndFlush(any());
     }
 
     @Test
@@ -179,14 +504,13 @@ class CustomerServiceTest {
                 27,
                 Gender.values()[RANDOM.nextInt(Gender.values().length)]
         );
-        when(customerRepository.existsCustomerByEmail(request.email())).thenReturn(false);
 
         // When
         underTest.updateCustomer(customerId, request);
 
         // Then
         ArgumentCaptor<Customer> argument = ArgumentCaptor.forClass(Customer.class);
-        verify(customerRepository).save(argument.capture());
+        verify(customerRepository).saveAndFlush(argument.capture());
         assertThat(argument.getValue().getName()).isEqualTo(request.name());
         assertThat(argument.getValue().getEmail()).isEqualTo(request.email());
         assertThat(argument.getValue().getPassword()).isEqualTo(request.password());
@@ -242,16 +566,16 @@ class CustomerServiceTest {
                 null,
                 null);
 
-        when(customerRepository.existsCustomerByEmail(request.email())).thenReturn(true);
+        when(customerRepository.saveAndFlush(customer)).thenThrow(uniqueViolation());
         when(messageSource.getMessage("exception.authentication.emailAlreadyExists", null, Locale.getDefault()))
                 .thenReturn("Exception message");
 
         // When
+        // Then
         assertThatThrownBy(() -> underTest.updateCustomer(customerId, request))
                 .isInstanceOf(DuplicateResourceException.class)
                 .hasMessage("Exception message");
-        // Then
-        verify(customerRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -280,7 +604,7 @@ class CustomerServiceTest {
 
         // Then
         ArgumentCaptor<Customer> argument = ArgumentCaptor.forClass(Customer.class);
-        verify(customerRepository).save(argument.capture());
+        verify(customerRepository).saveAndFlush(argument.capture());
         assertThat(argument.getValue().getName()).isEqualTo(request.name());
         assertThat(argument.getValue().getEmail()).isEqualTo(customer.getEmail());
         assertThat(argument.getValue().getPassword()).isEqualTo(customer.getPassword());
@@ -308,19 +632,19 @@ class CustomerServiceTest {
                 null,
                 null
         );
-        when(customerRepository.existsCustomerByEmail(request.email())).thenReturn(false);
 
         // When
         underTest.updateCustomer(customerId, request);
 
         // Then
         ArgumentCaptor<Customer> argument = ArgumentCaptor.forClass(Customer.class);
-        verify(customerRepository).save(argument.capture());
+        verify(customerRepository).saveAndFlush(argument.capture());
         assertThat(argument.getValue().getName()).isEqualTo(customer.getName());
         assertThat(argument.getValue().getEmail()).isEqualTo(request.email());
         assertThat(argument.getValue().getPassword()).isEqualTo(customer.getPassword());
         assertThat(argument.getValue().getAge()).isEqualTo(customer.getAge());
         assertThat(argument.getValue().getGender()).isEqualTo(customer.getGender());
+        verify(eventPublisher).publishEvent(new CustomerPrincipalChangedEvent("nikolai@gmail.com"));
     }
 
     @Test
@@ -348,7 +672,7 @@ class CustomerServiceTest {
 
         // Then
         ArgumentCaptor<Customer> argument = ArgumentCaptor.forClass(Customer.class);
-        verify(customerRepository).save(argument.capture());
+        verify(customerRepository).saveAndFlush(argument.capture());
         assertThat(argument.getValue().getName()).isEqualTo(customer.getName());
         assertThat(argument.getValue().getEmail()).isEqualTo(customer.getEmail());
         assertThat(argument.getValue().getPassword()).isEqualTo(customer.getPassword());
@@ -381,7 +705,7 @@ class CustomerServiceTest {
 
         // Then
         ArgumentCaptor<Customer> argument = ArgumentCaptor.forClass(Customer.class);
-        verify(customerRepository).save(argument.capture());
+        verify(customerRepository).saveAndFlush(argument.capture());
         assertThat(argument.getValue().getName()).isEqualTo(customer.getName());
         assertThat(argument.getValue().getEmail()).isEqualTo(customer.getEmail());
         assertThat(argument.getValue().getPassword()).isEqualTo(customer.getPassword());
@@ -419,20 +743,76 @@ class CustomerServiceTest {
                 .hasMessage("Exception message");
 
         // Then
+        verify(customerRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testUpdateCustomers() {
+        // Given
+        Customer customer = new Customer(1, "Nikolai", "nikolai@gmail.com", "password", 27, Gender.MALE);
+        Customer unchanged = new Customer(2, "Anna", "anna@gmail.com", "password", 30, Gender.FEMALE);
+        Customer conflicting = new Customer(3, "Ivan", "ivan@gmail.com", "password", 40, Gender.MALE);
+        Map<Integer, CustomerUpdateRequest> requests = new LinkedHashMap<>();
+        requests.put(1, new CustomerUpdateRequest("Nikolai Khriapov", "khriapov@gmail.com", null, 28, null));
+        requests.put(2, new CustomerUpdateRequest("Anna", null, null, 30, null));
+        requests.put(3, new CustomerUpdateRequest(null, "anna@gmail.com", null, null, null));
+        requests.put(4, new CustomerUpdateRequest("Missing", null, null, null, null));
+        when(customerRepository.findAllById(requests.keySet())).thenReturn(List.of(customer, unchanged, conflicting));
+        when(customerRepository.findExistingEmails(Set.of("khriapov@gmail.com", "anna@gmail.com")))
+                .thenReturn(Set.of("anna@gmail.com"));
+        when(messageSource.getMessage(anyString(), isNull(), eq(Locale.getDefault()))).thenReturn("Exception message");
+
+        // When
+        List<CustomerBulkResult> actual = underTest.updateCustomers(requests);
+
+        // Then
+        assertThat(actual).extracting(CustomerBulkResult::id).containsExactly(1, 2, 3, 4);
+        assertThat(actual).extracting(CustomerBulkResult::status).containsExactly(
+                CustomerBulkStatus.UPDATED,
+                CustomerBulkStatus.INVALID,
+                CustomerBulkStatus.CONFLICT,
+                CustomerBulkStatus.NOT_FOUND);
+
+        assertThat(customer.getName()).isEqualTo("Nikolai Khriapov");
+        assertThat(customer.getEmail()).isEqualTo("khriapov@gmail.com");
+        assertThat(customer.getAge()).isEqualTo(28);
+        assertThat(conflicting.getEmail()).isEqualTo("ivan@gmail.com");
+        verify(customerRepository).flush();
         verify(customerRepository, never()).save(any());
     }
 
+    @Test
+    void testDeleteCustomers() {
+        // Given
+        when(customerRepository.findCustomerDTOsByIds(Set.of(1, 2))).thenReturn(List.of(
+                new CustomerDTO(1, "Nikolai", "nikolai@gmail.com", 28, Gender.MALE, null)));
+        when(messageSource.getMessage("exception.customer.notFound", null, Locale.getDefault()))
+                .thenReturn("Exception message");
+
+        // When
+        List<CustomerBulkResult> actual = underTest.deleteCustomers(List.of(1, 2, 1));
+
+        // Then
+        verify(customerRepository).deleteAllByIdInBatch(Set.of(1));
+        verify(eventPublisher).publishEvent(new CustomerPrincipalChangedEvent("nikolai@gmail.com"));
+        assertThat(actual).containsExactly(
+                new CustomerBulkResult(1, null, CustomerBulkStatus.DELETED, null),
+                new CustomerBulkResult(2, null, CustomerBulkStatus.NOT_FOUND, "Exception message"));
+    }
+
     @Test
     void testDeleteCustomer() {
         // Given
         Integer customerId = 1;
-        when(customerRepository.existsCustomerById(customerId)).thenReturn(true);
+        when(customerRepository.findCustomerDTOById(customerId)).thenReturn(Optional.of(
+                new CustomerDTO(customerId, "Nikolai", "nikolai@gmail.com", 28, Gender.MALE, null)));
 
         // When
         underTest.deleteCustomer(customerId);
 
         // Then
         verify(customerRepository).deleteById(customerId);
+        verify(eventPublisher).publishEvent(new CustomerPrincipalChangedEvent("nikolai@gmail.com"));
     }
 
     @Test
@@ -440,7 +820,7 @@ class CustomerServiceTest {
         // Given
         Integer customerId = 1;
 
-        when(customerRepository.existsCustomerById(customerId)).thenReturn(false);
+        when(customerRepository.findCustomerDTOById(customerId)).thenReturn(Optional.empty());
         when(messageSource.getMessage("exception.customer.notFound", null, Locale.getDefault()))
                 .thenReturn("Exception message");
 
@@ -469,12 +849,12 @@ class CustomerServiceTest {
         Customer customer = new Customer(customerId, name, email, password, age, gender);
         when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
 
-        String profileImage =
+        String profileImagePath =
                 fileStorageProperties.getProfileImageDirectory().formatted(customerId) +
-                        fileStorageProperties.getProfileImageName().formatted(customerId, ".jpg");
-        MultipartFile multipartFile = new MockMultipartFile("file.jpg", "Hello World".getBytes());
-        when(fileStorageService.putProfileImage(customerId, multipartFile.getBytes(), multipartFile.getOriginalFilename()))
-                .thenReturn(profileImage);
+                        fileStorageProperties.getProfileImageName().formatted("hash", ".jpg");
+        MultipartFile multipartFile = new MockMultipartFile("file", "file.jpeg", null, JPEG_BYTES);
+        when(fileStorageService.putProfileImage(eq(customerId), any(InputStream.class), eq(ProfileImageType.JPEG)))
+                .thenReturn(new StoredFile(profileImagePath, "hash"));
 
         // When
         underTest.updateCustomerProfileImage(customerId, multipartFile);
@@ -482,7 +862,10 @@ class CustomerServiceTest {
         // Then
         ArgumentCaptor<Customer> argument = ArgumentCaptor.forClass(Customer.class);
         verify(customerRepository).save(argument.capture());
-        assertThat(argument.getValue().getProfileImage()).isEqualTo(profileImage);
+        verify(fileStorageService, never()).deleteProfileImage(any());
+        assertThat(argument.getValue().getProfileImagePath()).isEqualTo(profileImagePath);
+        assertThat(argument.getValue().getProfileImage())
+                .isEqualTo("/api/v1/customers/%s/profile-image/hash".formatted(customerId));
 
         assertThat(argument.getValue().getName()).isEqualTo(name);
         assertThat(argument.getValue().getEmail()).isEqualTo(email);
@@ -491,6 +874,33 @@ class CustomerServiceTest {
         assertThat(argument.getValue().getGender()).isEqualTo(gender);
     }
 
+    @Test
+    void testUpdateCustomerProfileImage_DeletesOldImageAfterSave() throws IOException {
+        // Given
+        Integer customerId = RANDOM.nextInt(1, 1000);
+        Customer customer = new Customer(customerId, "Nikolai", "nikolai@gmail.com", "password", 27, Gender.MALE);
+        String oldProfileImagePath = PROFILE_IMAGE_DIRECTORY.formatted(customerId) + PROFILE_IMAGE_NAME.formatted("oldHash", ".png");
+        String profileImagePath = PROFILE_IMAGE_DIRECTORY.formatted(customerId) + PROFILE_IMAGE_NAME.formatted("hash", ".jpg");
+        customer.setProfileImagePath(oldProfileImagePath);
+        customer.setProfileImage("/api/v1/customers/%s/profile-image/oldHash".formatted(customerId));
+        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
+
+        MultipartFile multipartFile = new MockMultipartFile("file", "file.jpg", null, JPEG_BYTES);
+        when(fileStorageService.putProfileImage(eq(customerId), any(InputStream.class), eq(ProfileImageType.JPEG)))
+                .thenReturn(new StoredFile(profileImagePath, "hash"));
+
+        // When
+        underTest.updateCustomerProfileImage(customerId, multipartFile);
+
+        // Then
+        InOrder inOrder = inOrder(fileStorageService, customerRepository);
+        inOrder.verify(fileStorageService).putProfileImage(eq(customerId), any(InputStream.class), eq(ProfileImageType.JPEG));
+        inOrder.verify(customerRepository).save(customer);
+        inOrder.verify(fileStorageService).deleteProfileImage(oldProfileImagePath);
+        assertThat(customer.getProfileImagePath()).isEqualTo(profileImagePath);
+        assertThat(customer.getProfileImage()).isEqualTo("/api/v1/customers/%s/profile-image/hash".formatted(customerId));
+    }
+
     @Test
     void testUpdateCustomerProfileImage_Exception_CustomerNotFound() {
         // Given
@@ -526,7 +936,8 @@ class CustomerServiceTest {
         when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
 
         MultipartFile multipartFile = mock(MultipartFile.class);
-        when(multipartFile.getBytes()).thenThrow(IOException.class);
+        when(multipartFile.getOriginalFilename()).thenReturn("file.jpg");
+        when(multipartFile.getInputStream()).thenThrow(IOException.class);
         when(messageSource.getMessage("exception.customer.profileImage.notUploaded", null, Locale.getDefault()))
                 .thenReturn("Exception message");
 
@@ -538,102 +949,123 @@ class CustomerServiceTest {
 
         // Then
         verify(customerRepository, never()).save(any());
+        verifyNoInteractions(fileStorageService);
     }
 
     @Test
-    void testGetCustomerProfileImage() {
+    void testUpdateCustomerProfileImage_Exception_UnsupportedType() {
         // Given
-        Integer customerId = 10;
-        String name = "Nikolai";
-        String email = "nikolai@gmail.com";
-        String password = "password";
-        String profileImage = "someImage.jpg";
-        Integer age = 28;
-        Gender gender = Gender.values()[RANDOM.nextInt(Gender.values().length)];
-        byte[] profileImageBytes = "image".getBytes();
+        Integer customerId = RANDOM.nextInt(1, 1000);
+        Customer customer = new Customer(customerId, "Nikolai", "nikolai@gmail.com", "password", 27, Gender.MALE);
+        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
+
+        MultipartFile multipartFile = new MockMultipartFile("file", "file.jpg", "image/jpeg",
+                "<svg xmlns=\"http://www.w3.org/2000/svg\"><script>alert(1)</script></svg>".getBytes());
+        when(messageSource.getMessage("exception.customer.profileImage.unsupportedType", null, Locale.getDefault()))
+                .thenReturn("Exception message");
 
-        Customer customer =
-                new Customer(customerId, name, email, password, age, gender, profileImage);
+        // When
+        assertThatThrownBy(() -> underTest.updateCustomerProfileImage(customerId, multipartFile))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Exception message");
 
-        CustomerDTO customerDTO =
-                new CustomerDTO(customerId, name, email, age, gender, profileImage, List.of("ROLE_USER"));
+        // Then
+        verify(customerRepository, never()).save(any());
+        verifyNoInteractions(fileStorageService);
+    }
 
+    @Test
+    void testUpdateCustomerProfileImage_Exception_MissingExtension() {
+        // Given
+        Integer customerId = RANDOM.nextInt(1, 1000);
+        Customer customer = new Customer(customerId, "Nikolai", "nikolai@gmail.com", "password", 27, Gender.MALE);
         when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
 
-        when(fileStorageService.getProfileImage(customerDTO.profileImage())).thenReturn(profileImageBytes);
+        MultipartFile multipartFile = new MockMultipartFile("file", "file", null, JPEG_BYTES);
+        when(messageSource.getMessage("exception.customer.profileImage.missingExtension", null, Locale.getDefault()))
+                .thenReturn("Exception message");
 
         // When
-        byte[] actualImageBytes = underTest.getCustomerProfileImage(customerId);
+        assertThatThrownBy(() -> underTest.updateCustomerProfileImage(customerId, multipartFile))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Exception message");
 
         // Then
-        assertThat(actualImageBytes).isEqualTo(profileImageBytes);
+        verify(customerRepository, never()).save(any());
+        verifyNoInteractions(fileStorageService);
     }
 
     @Test
-    void testGetCustomerProfileImage_Exception_FileNotFound() {
+    void testGetCustomerProfileImage() {
         // Given
         Integer customerId = 10;
-        String name = "Nikolai";
-        String email = "nikolai@gmail.com";
-        String password = "password";
-        Integer age = 28;
-        Gender gender = Gender.values()[RANDOM.nextInt(Gender.values().length)];
-
-        Customer customer =
-                new Customer(customerId, name, email, password, age, gender);
-
-        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
-        when(messageSource.getMessage("exception.customer.profileImage.notFound", null, Locale.getDefault()))
-                .thenReturn("Exception message");
+        CustomerProfileImage profileImage =
+                new CustomerProfileImage("hash.jpg", "/api/v1/customers/10/profile-image/hash");
+        when(customerRepository.findProfileImageById(customerId)).thenReturn(Optional.of(profileImage));
 
         // When
-        // Then
-        assertThatThrownBy(() -> underTest.getCustomerProfileImage(customerId))
-                .isInstanceOf(ResourceNotFoundException.class)
-                .hasMessage("Exception message");
+        CustomerProfileImage actual = underTest.getCustomerProfileImage(customerId);
 
+        // Then
+        assertThat(actual).isEqualTo(profileImage);
+        assertThat(actual.version()).isEqualTo("hash");
         verifyNoInteractions(fileStorageService);
     }
 
     @Test
-    void testDeleteCustomerProfileImage() throws IOException {
+    void testGetCustomerProfileImage_Resource() {
         // Given
-        Integer customerId = 1;
-        String profileImageName =
-                PROFILE_IMAGE_DIRECTORY.formatted(customerId) +
-                        PROFILE_IMAGE_NAME.formatted(customerId, ".jpg");
+        CustomerProfileImage profileImage =
+                new CustomerProfileImage("hash.jpg", "/api/v1/customers/10/profile-image/hash");
+        Resource profileImageResource = new ByteArrayResource("image".getBytes());
+        when(fileStorageService.getProfileImage("hash.jpg")).thenReturn(profileImageResource);
 
-        Customer customer = new Customer();
-        customer.setId(customerId);
-        customer.setProfileImage(profileImageName);
+        // When
+        Resource actual = underTest.getCustomerProfileImage(profileImage);
 
-        Path profileImagePath = Path.of(profileImageName);
-        Files.createDirectories(profileImagePath.getParent());
-        Files.write(profileImagePath, "imageBytes".getBytes());
+        // Then
+        assertThat(actual).isSameAs(profileImageResource);
+    }
+
+    @Test
+    void testGetCustomerProfileImageThumbnail() {
+        // Given
+        CustomerProfileImage profileImage =
+                new CustomerProfileImage("hash.jpg", "/api/v1/customers/10/profile-image/hash");
+        Resource thumbnail = new ByteArrayResource("thumbnail".getBytes());
+        when(fileStorageService.getProfileImageThumbnail("hash.jpg", "hash", 64)).thenReturn(Optional.of(thumbnail));
 
         // When
-        underTest.deleteCustomerProfileImage(customer);
+        Optional<Resource> actual = underTest.getCustomerProfileImageThumbnail(profileImage, 64);
 
         // Then
-        assertThat(Files.exists(profileImagePath)).isFalse();
-        assertThat(customer.getProfileImage()).isNull();
+        assertThat(actual).containsSame(thumbnail);
     }
 
     @Test
-    void testDeleteCustomerProfileImage_Exception_FileNotFound() {
+    void testGetCustomerProfileImage_Exception_NoProfileImage() {
         // Given
-        Integer customerId = 1;
-        String profileImageName =
-                PROFILE_IMAGE_DIRECTORY.formatted(customerId) + PROFILE_IMAGE_NAME.formatted(customerId, ".jpg");
+        Integer customerId = 10;
 
-        Customer customer = new Customer();
-        customer.setId(customerId);
-        customer.setProfileImage(profileImageName);
+        when(customerRepository.findProfileImageById(customerId)).thenReturn(Optional.empty());
+        when(messageSource.getMessage("exception.customer.profileImage.notFound", null, Locale.getDefault()))
+                .thenReturn("Exception message");
 
         // When
         // Then
-        assertThatThrownBy(() -> underTest.deleteCustomerProfileImage(customer))
-                .isInstanceOf(RuntimeException.class)
-                .hasMessage("File not found");
+        assertThatThrownBy(() -> underTest.getCustomerProfileImage(customerId))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Exception message");
+
+        verifyNoInteractions(fileStorageService);
+    }
+
+    private static CachedCustomer versioned(CustomerDTO customerDTO) {
+        return new CachedCustomer(customerDTO, new CustomerVersion(customerDTO.id(), 0L, Instant.EPOCH));
+    }
+
+    private static DataIntegrityViolationException uniqueViolation() {
+        return new DataIntegrityViolationException("duplicate key",
+                new SQLException("duplicate key value violates unique constraint", "23505"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,109 @@
+package my.project.fullstackapp.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Locale;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerUserDetailsServiceTest {
+
+    private CustomerUserDetailsService underTest;
+    @Mock
+    private CustomerRepository customerRepository;
+    @Mock
+    private MessageSource messageSource;
+    private SimpleMeterRegistry meterRegistry;
+
+    private final CustomerPrincipal customer =
+            new CustomerPrincipal(1, "Nikolai", "nikolai@gmail.com", 28, Gender.MALE, null, "password");
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new CustomerUserDetailsService(
+                customerRepository, messageSource, new CustomerCacheProperties(), meterRegistry);
+    }
+
+    @Test
+    void testLoadUserByUsername_Cached() {
+        // Given
+        when(customerRepository.findCustomerPrincipalByEmail("nikolai@gmail.com")).thenReturn(Optional.of(customer));
+
+        // When
+        underTest.loadUserByUsername("nikolai@gmail.com");
+        var actual = underTest.loadUserByUsername("nikolai@gmail.com");
+
+        // Then
+        assertThat(actual).isEqualTo(customer);
+        verify(customerRepository, times(1)).findCustomerPrincipalByEmail("nikolai@gmail.com");
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "principals").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testLoadUserByUsername_EvictedOnPrincipalChange() {
+        // Given
+        when(customerRepository.findCustomerPrincipalByEmail("nikolai@gmail.com"))
+                .thenReturn(Optional.of(customer))
+                .thenReturn(Optional.empty());
+        when(messageSource.getMessage("exception.authentication.usernameNotFound", null, Locale.getDefault()))
+                .thenReturn("Exception message");
+        underTest.loadUserByUsername("nikolai@gmail.com");
+
+        // When
+        underTest.onCustomerPrincipalChanged(new CustomerPrincipalChangedEvent("nikolai@gmail.com"));
+
+        // Then
+        assertThatThrownBy(() -> underTest.loadUserByUsername("nikolai@gmail.com"))
+                .isInstanceOf(UsernameNotFoundException.class)
+                .hasMessage("Exception message");
+    }
+
+    @Test
+    void testLoadUserByUsername_NotFoundIsNotCached() {
+        // Given
+        when(customerRepository.findCustomerPrincipalByEmail("nikolai@gmail.com"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(customer));
+        when(messageSource.getMessage("exception.authentication.usernameNotFound", null, Locale.getDefault()))
+                .thenReturn("Exception message");
+
+        // When
+        assertThatThrownBy(() -> underTest.loadUserByUsername("nikolai@gmail.com"))
+                .isInstanceOf(UsernameNotFoundException.class);
+        var actual = underTest.loadUserByUsername("nikolai@gmail.com");
+
+        // Then
+        assertThat(actual).isEqualTo(customer);
+    }
+
+    @Test
+    void testUpdatePassword() {
+        // Given
+        when(customerRepository.findCustomerPrincipalByEmail("nikolai@gmail.com")).thenReturn(Optional.of(customer));
+        underTest.loadUserByUsername("nikolai@gmail.com");
+
+        // When
+        var actual = underTest.updatePassword(customer, "{bcrypt}upgraded");
+        underTest.loadUserByUsername("nikolai@gmail.com");
+
+        // Then
+        assertThat(actual.getPassword()).isEqualTo("{bcrypt}upgraded");
+        assertThat(actual).isNotSameAs(customer);
+        assertThat(customer.getPassword()).isEqualTo("password");
+        verify(customerRepository).updatePasswordByEmail("nikolai@gmail.com", "{bcrypt}upgraded");
+        verify(customerRepository, times(2)).findCustomerPrincipalByEmail("nikolai@gmail.com");
+    }
+}
@@ -0,0 +1,101 @@
+package my.project.fullstackapp.filestorage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Profile image write and read at typical upload sizes, against a temporary directory on the
+ * local file system. Results depend on the disk and page cache of the machine they run on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileStorageServiceBenchmark {
+
+    @Param({"65536", "524288", "4194304"})
+    private int imageSize;
+
+    private Path directory;
+    private FileStorageService fileStorageService;
+    private byte[] image;
+    private String storedImage;
+    private FileChannel sink;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("file-storage-benchmark");
+        FileStorageProperties fileStorageProperties = new FileStorageProperties();
+        fileStorageProperties.setProfileImageDirectory(directory + "/user-%s/profile-image/");
+        fileStorageProperties.setProfileImageName("%s-profile-image%s");
+        // no thumbnail sizes, thumbnails are measured separately in ProfileImageThumbnailsBenchmark
+        fileStorageProperties.setThumbnailSizes(List.of());
+        fileStorageProperties.setImageCacheMaximumEntrySize(DataSize.ofBytes(imageSize));
+        fileStorageService = new FileStorageService(fileStorageProperties,
+                new ProfileImageThumbnails(fileStorageProperties, new SimpleMeterRegistry()),
+                new ProfileImageCache(fileStorageProperties, new SimpleMeterRegistry()));
+
+        image = new byte[imageSize];
+        ThreadLocalRandom.current().nextBytes(image);
+        storedImage = fileStorageService.putProfileImage(1, new ByteArrayInputStream(image), ProfileImageType.JPEG).path();
+        sink = FileChannel.open(directory.resolve("sink"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        sink.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public StoredFile putProfileImage() {
+        return fileStorageService.putProfileImage(2, new ByteArrayInputStream(image), ProfileImageType.JPEG);
+    }
+
+    @Benchmark
+    public byte[] getProfileImage_readAllBytes() throws IOException {
+        return Files.readAllBytes(Path.of(storedImage));
+    }
+
+    // what the download endpoint does without sendfile, streaming the file through a reused buffer
+    @Benchmark
+    public long getProfileImage_stream() throws IOException {
+        try (InputStream in = new FileSystemResource(storedImage).getInputStream()) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    // a hit in ProfileImageCache, streaming from the direct buffer without touching the disk
+    @Benchmark
+    public long getProfileImage_cached() throws IOException {
+        try (InputStream in = fileStorageService.getProfileImage(storedImage).getInputStream()) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    // the sendfile path, the kernel copies the file to the target channel without a heap buffer
+    @Benchmark
+    public long getProfileImage_transferTo() throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(storedImage), StandardOpenOption.READ)) {
+            sink.position(0);
+            return channel.transferTo(0, channel.size(), sink);
+        }
+    }
+}
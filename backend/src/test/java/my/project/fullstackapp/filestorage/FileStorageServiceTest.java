@@ -1,5 +1,6 @@
 package my.project.fullstackapp.filestorage;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import my.project.fullstackapp.exception.ResourceNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -7,14 +8,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.Resource;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.Base64;
 import java.util.Random;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
@@ -24,14 +32,18 @@ class FileStorageServiceTest {
     private FileStorageService underTest;
     @Mock
     private FileStorageProperties fileStorageProperties;
+    @Mock
+    private ProfileImageThumbnails profileImageThumbnails;
+    private ProfileImageCache profileImageCache;
 
     private final static String PROFILE_IMAGE_DIRECTORY = "src/test/resources/garbage/static/images/user-%s/profile-image/";
-    private final static String PROFILE_IMAGE_NAME = "%s-profile-image%s";
+    private final static String PROFILE_IMAGE_NAME = "%s%s";
     private static final Random RANDOM = new Random();
 
     @BeforeEach
     void setUp() {
-        underTest = new FileStorageService(fileStorageProperties);
+        profileImageCache = new ProfileImageCache(new FileStorageProperties(), new SimpleMeterRegistry());
+        underTest = new FileStorageService(fileStorageProperties, profileImageThumbnails, profileImageCache);
     }
 
     @Test
@@ -52,66 +64,113 @@ class FileStorageServiceTest {
         Files.write(tempProfileImagePath, profileImageBytes);
 
         // When
-        byte[] actual = underTest.getProfileImage(profileImage);
+        Resource actual = underTest.getProfileImage(profileImage);
 
         // Then
-        assertThat(actual).isEqualTo(profileImageBytes);
+        assertThat(actual).isInstanceOf(ByteBufferResource.class);
+        assertThat(actual.getFilename()).isEqualTo(tempProfileImagePath.getFileName().toString());
+        assertThat(actual.contentLength()).isEqualTo(profileImageBytes.length);
+        assertThat(actual.getContentAsByteArray()).isEqualTo(profileImageBytes);
     }
 
     @Test
-    void testGetProfileImage_Exception_CannotReadBytes() {
+    void testGetProfileImage_Exception_FileNotFound() {
         // Given
         when(fileStorageProperties.getProfileImageDirectory()).thenReturn(PROFILE_IMAGE_DIRECTORY);
         when(fileStorageProperties.getProfileImageName()).thenReturn(PROFILE_IMAGE_NAME);
 
-        Integer id = RANDOM.nextInt(1, 1000);
+        Integer id = RANDOM.nextInt(1000, 2000);
 
         String profileImage =
                 fileStorageProperties.getProfileImageDirectory().formatted(id) +
                         fileStorageProperties.getProfileImageName().formatted(id, ".jpg");
 
-        try (MockedStatic<Files> filesMock = mockStatic(Files.class)) {
-            filesMock.when(() ->
-                    Files.readAllBytes(Path.of(profileImage))).thenThrow(new IOException());
-
-            // When
-            // Then
-            assertThatThrownBy(() -> underTest.getProfileImage(profileImage))
-                    .isInstanceOf(RuntimeException.class)
-                    .hasMessage("Cannot read bytes");
-        }
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getProfileImage(profileImage))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Profile image not found");
     }
 
     @Test
-    void testPutProfileImage() throws IOException {
+    void testPutProfileImage() throws Exception {
         // Given
         when(fileStorageProperties.getProfileImageDirectory()).thenReturn(PROFILE_IMAGE_DIRECTORY);
         when(fileStorageProperties.getProfileImageName()).thenReturn(PROFILE_IMAGE_NAME);
 
         Integer customerId = RANDOM.nextInt(1, 1000);
         byte[] fileBytes = "This is a test image".getBytes();
-        String originalFileName = "test.jpg";
+        ProfileImageType type = ProfileImageType.JPEG;
 
         // When
-        String profileImagePath = underTest.putProfileImage(customerId, fileBytes, originalFileName);
+        StoredFile profileImage =
+                underTest.putProfileImage(customerId, new ByteArrayInputStream(fileBytes), type);
 
         // Then
+        String contentHash = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                MessageDigest.getInstance("SHA-256").digest(fileBytes));
         String expected =
                 fileStorageProperties.getProfileImageDirectory().formatted(customerId) +
-                        fileStorageProperties.getProfileImageName().formatted(customerId, ".jpg");
-        assertThat(profileImagePath).isEqualTo(expected);
+                        fileStorageProperties.getProfileImageName().formatted(contentHash, ".jpg");
+        assertThat(profileImage.path()).isEqualTo(expected);
+        assertThat(profileImage.contentHash()).isEqualTo(contentHash);
+        verify(profileImageThumbnails).generateAsync(profileImage);
         assertThat(fileBytes).isEqualTo(Files.readAllBytes(Path.of(expected)));
+        assertThat(Path.of(expected).getParent()).isDirectoryNotContaining("glob:**.tmp");
     }
 
     @Test
-    void testPutProfileImage_Exception_DirectoryNotFound() {
+    void testPutProfileImage_NewContentKeepsOldFile() throws IOException {
         // Given
         when(fileStorageProperties.getProfileImageDirectory()).thenReturn(PROFILE_IMAGE_DIRECTORY);
         when(fileStorageProperties.getProfileImageName()).thenReturn(PROFILE_IMAGE_NAME);
 
         Integer customerId = RANDOM.nextInt(1, 1000);
-        byte[] fileBytes = "This is a test image".getBytes();
-        String originalFileName = "test.jpg";
+        ProfileImageType type = ProfileImageType.JPEG;
+        StoredFile oldProfileImage =
+                underTest.putProfileImage(customerId, new ByteArrayInputStream("old image".getBytes()), type);
+
+        // When
+        StoredFile profileImage =
+                underTest.putProfileImage(customerId, new ByteArrayInputStream("new image".getBytes()), type);
+
+        // Then
+        assertThat(profileImage.path()).isNotEqualTo(oldProfileImage.path());
+        assertThat(profileImage.contentHash()).isNotEqualTo(oldProfileImage.contentHash());
+        assertThat(Files.readAllBytes(Path.of(profileImage.path()))).isEqualTo("new image".getBytes());
+        assertThat(Files.readAllBytes(Path.of(oldProfileImage.path()))).isEqualTo("old image".getBytes());
+    }
+
+    @Test
+    void testPutProfileImage_InvalidatesCachedImage() throws IOException {
+        // Given
+        when(fileStorageProperties.getProfileImageDirectory()).thenReturn(PROFILE_IMAGE_DIRECTORY);
+        when(fileStorageProperties.getProfileImageName()).thenReturn(PROFILE_IMAGE_NAME);
+
+        Integer customerId = RANDOM.nextInt(1, 1000);
+        ProfileImageType type = ProfileImageType.JPEG;
+        StoredFile oldProfileImage =
+                underTest.putProfileImage(customerId, new ByteArrayInputStream("old image".getBytes()), type);
+        assertThat(underTest.getProfileImage(oldProfileImage.path()).getContentAsByteArray())
+                .isEqualTo("old image".getBytes());
+
+        // When
+        StoredFile profileImage =
+                underTest.putProfileImage(customerId, new ByteArrayInputStream("new image".getBytes()), type);
+
+        // Then
+        assertThat(underTest.getProfileImage(profileImage.path()).getContentAsByteArray())
+                .isEqualTo("new image".getBytes());
+    }
+
+    @Test
+    void testPutProfileImage_Exception_DirectoryNotFound() {
+        // Given
+        when(fileStorageProperties.getProfileImageDirectory()).thenReturn(PROFILE_IMAGE_DIRECTORY);
+
+        Integer customerId = RANDOM.nextInt(1, 1000);
+        InputStream fileStream = new ByteArrayInputStream("This is a test image".getBytes());
+        ProfileImageType type = ProfileImageType.JPEG;
 
         String profileImageDirectory = fileStorageProperties.getProfileImageDirectory().formatted(customerId);
 
@@ -121,34 +180,68 @@ class FileStorageServiceTest {
 
             // When
             // Then
-            assertThatThrownBy(() -> underTest.putProfileImage(customerId, fileBytes, originalFileName))
+            assertThatThrownBy(() -> underTest.putProfileImage(customerId, fileStream, type))
                     .isInstanceOf(ResourceNotFoundException.class)
                     .hasMessage("Profile image not found");
         }
     }
 
     @Test
-    void testPutProfileImage_Exception_FileNotFound() {
+    void testPutProfileImage_Exception_UploadInterrupted() throws IOException {
         // Given
         when(fileStorageProperties.getProfileImageDirectory()).thenReturn(PROFILE_IMAGE_DIRECTORY);
         when(fileStorageProperties.getProfileImageName()).thenReturn(PROFILE_IMAGE_NAME);
 
-        Integer customerId = RANDOM.nextInt(1, 1000);
-        byte[] fileBytes = "This is a test image".getBytes();
-        String originalFileName = "test.jpg";
+        Integer customerId = RANDOM.nextInt(1000, 2000);
+        ProfileImageType type = ProfileImageType.JPEG;
+        String profileImage = underTest.putProfileImage(
+                customerId, new ByteArrayInputStream("old image".getBytes()), type).path();
 
-        String profileImageDirectory = fileStorageProperties.getProfileImageDirectory().formatted(customerId);
-        String profileImageName = fileStorageProperties.getProfileImageName().formatted(customerId, ".jpg");
+        InputStream fileStream = new SequenceInputStream(
+                new ByteArrayInputStream("new ima".getBytes()),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+                });
 
-        try (MockedStatic<Files> filesMock = mockStatic(Files.class)) {
-            filesMock.when(() ->
-                    Files.write(Path.of(profileImageDirectory + profileImageName), fileBytes)).thenThrow(new IOException());
+        // When
+        assertThatThrownBy(() -> underTest.putProfileImage(customerId, fileStream, type))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Profile image not found");
 
-            // When
-            // Then
-            assertThatThrownBy(() -> underTest.putProfileImage(customerId, fileBytes, originalFileName))
-                    .isInstanceOf(ResourceNotFoundException.class)
-                    .hasMessage("Profile image not found");
-        }
+        // Then
+        assertThat(Files.readAllBytes(Path.of(profileImage))).isEqualTo("old image".getBytes());
+        verify(profileImageThumbnails, times(1)).generateAsync(any());
+        assertThat(Path.of(profileImage).getParent()).isDirectoryNotContaining("glob:**.tmp");
+    }
+
+    @Test
+    void testDeleteProfileImage() throws IOException {
+        // Given
+        Path profileImage = Path.of(PROFILE_IMAGE_DIRECTORY.formatted(0) + PROFILE_IMAGE_NAME.formatted(0, ".jpg"));
+        Files.createDirectories(profileImage.getParent());
+        Files.write(profileImage, "image".getBytes());
+
+        underTest.getProfileImage(profileImage.toString());
+
+        // When
+        underTest.deleteProfileImage(profileImage.toString());
+
+        // Then
+        assertThat(profileImage).doesNotExist();
+        assertThatThrownBy(() -> underTest.getProfileImage(profileImage.toString()))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void testDeleteProfileImage_FileNotFound() {
+        // Given
+        String profileImage = PROFILE_IMAGE_DIRECTORY.formatted(-1) + PROFILE_IMAGE_NAME.formatted(-1, ".jpg");
+
+        // When
+        // Then
+        assertThatCode(() -> underTest.deleteProfileImage(profileImage)).doesNotThrowAnyException();
     }
-}
\ No newline at end of file
+}
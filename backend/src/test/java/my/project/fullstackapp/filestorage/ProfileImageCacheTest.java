@@ -0,0 +1,156 @@
+package my.project.fullstackapp.filestorage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfileImageCacheTest {
+
+    private final static String PROFILE_IMAGE_DIRECTORY = "src/test/resources/garbage/static/images/user-%s/profile-image/";
+    private static final Random RANDOM = new Random();
+
+    private ProfileImageCache underTest;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        FileStorageProperties fileStorageProperties = new FileStorageProperties();
+        fileStorageProperties.setImageCacheSize(DataSize.ofBytes(1000));
+        fileStorageProperties.setImageCacheMaximumEntrySize(DataSize.ofBytes(600));
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new ProfileImageCache(fileStorageProperties, meterRegistry);
+    }
+
+    @Test
+    void testGet_Cached() throws IOException {
+        // Given
+        byte[] image = randomBytes(500);
+        Path path = givenImage(image);
+        underTest.get(path);
+        Files.delete(path);
+
+        // When
+        Resource actual = underTest.get(path);
+
+        // Then
+        assertThat(actual.isFile()).isFalse();
+        assertThat(actual.getFilename()).isEqualTo(path.getFileName().toString());
+        assertThat(actual.contentLength()).isEqualTo(500);
+        assertThat(actual.getContentAsByteArray()).isEqualTo(image);
+        // the weighted size is updated by Caffeine's asynchronous maintenance
+        underTest.cleanUp();
+        assertThat(underTest.residentBytes()).isEqualTo(500);
+        assertThat(meterRegistry.get("cache.hit.ratio").tag("cache", "profile-images").gauge().value())
+                .isEqualTo(0.5);
+        assertThat(meterRegistry.get("cache.resident.bytes").tag("cache", "profile-images").gauge().value())
+                .isEqualTo(500);
+    }
+
+    @Test
+    void testGet_TooLargeToCache() throws IOException {
+        // Given
+        Path path = givenImage(randomBytes(700));
+
+        // When
+        Resource actual = underTest.get(path);
+        Files.delete(path);
+
+        // Then
+        // readable and sized from the load, the file is not looked up a second time
+        assertThat(actual.isFile()).isTrue();
+        assertThat(actual.isReadable()).isTrue();
+        assertThat(actual.contentLength()).isEqualTo(700);
+        assertThat(actual.getFile().toPath()).isEqualTo(path);
+        underTest.cleanUp();
+        assertThat(underTest.residentBytes()).isZero();
+    }
+
+    @Test
+    void testGet_FileNotFound() {
+        // Given
+        Path path = Path.of(PROFILE_IMAGE_DIRECTORY.formatted(-1), "profile-image.jpg");
+
+        // When
+        Resource actual = underTest.get(path);
+
+        // Then
+        assertThat(actual.isReadable()).isFalse();
+        assertThat(underTest.residentBytes()).isZero();
+    }
+
+    @Test
+    void testGet_Range() throws IOException {
+        // Given
+        byte[] image = randomBytes(500);
+        Path path = givenImage(image);
+
+        // When
+        byte[] actual;
+        try (InputStream in = underTest.get(path).getInputStream()) {
+            assertThat(in.skip(100)).isEqualTo(100);
+            actual = in.readNBytes(50);
+        }
+
+        // Then
+        assertThat(actual).isEqualTo(Arrays.copyOfRange(image, 100, 150));
+        assertThat(underTest.get(path).getContentAsByteArray()).isEqualTo(image);
+    }
+
+    @Test
+    void testGet_EvictsBeyondBudget() throws IOException {
+        // Given
+        Path first = givenImage(randomBytes(500));
+        Path second = givenImage(randomBytes(500));
+        Path third = givenImage(randomBytes(500));
+
+        // When
+        underTest.get(first);
+        underTest.get(second);
+        underTest.get(third);
+        underTest.cleanUp();
+
+        // Then
+        assertThat(underTest.residentBytes()).isLessThanOrEqualTo(1000);
+        assertThat(meterRegistry.get("cache.evictions").tag("cache", "profile-images").functionCounter().count())
+                .isPositive();
+    }
+
+    @Test
+    void testInvalidate() throws IOException {
+        // Given
+        Path path = givenImage(randomBytes(500));
+        underTest.get(path);
+        byte[] image = randomBytes(300);
+        Files.write(path, image);
+
+        // When
+        underTest.invalidate(path);
+
+        // Then
+        assertThat(underTest.get(path).getContentAsByteArray()).isEqualTo(image);
+    }
+
+    private Path givenImage(byte[] image) throws IOException {
+        Path path = Path.of(PROFILE_IMAGE_DIRECTORY.formatted(RANDOM.nextInt(1, 100_000)), "profile-image.jpg");
+        Files.createDirectories(path.getParent());
+        Files.write(path, image);
+        return path;
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        RANDOM.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,64 @@
+package my.project.fullstackapp.filestorage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Thumbnail generation for a photo sized upload, the work each upload queues on the thumbnail
+ * pool. Compare with FileStorageServiceBenchmark.getProfileImage_* for what a 64 or 256 pixel
+ * thumbnail saves per download.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProfileImageThumbnailsBenchmark {
+
+    @Param({"1024x768", "4000x3000"})
+    private String dimensions;
+
+    private Path directory;
+    private ProfileImageThumbnails profileImageThumbnails;
+    private StoredFile profileImage;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("thumbnails-benchmark");
+        FileStorageProperties fileStorageProperties = new FileStorageProperties();
+        profileImageThumbnails = new ProfileImageThumbnails(fileStorageProperties, new SimpleMeterRegistry());
+
+        String[] size = dimensions.split("x");
+        BufferedImage image = new BufferedImage(
+                Integer.parseInt(size[0]), Integer.parseInt(size[1]), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.ORANGE, image.getWidth(), image.getHeight(), Color.BLUE));
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.dispose();
+
+        Path path = directory.resolve("1-profile-image.jpg");
+        ImageIO.write(image, "jpg", path.toFile());
+        profileImage = new StoredFile(path.toString(), "hash");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        profileImageThumbnails.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void generate() {
+        profileImageThumbnails.generate(profileImage);
+    }
+}
@@ -0,0 +1,197 @@
+package my.project.fullstackapp.filestorage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfileImageThumbnailsTest {
+
+    private final static String PROFILE_IMAGE_DIRECTORY = "src/test/resources/garbage/static/images/user-%s/profile-image/";
+    private static final Random RANDOM = new Random();
+
+    private ProfileImageThumbnails underTest;
+    private SimpleMeterRegistry meterRegistry;
+    private FileStorageProperties fileStorageProperties;
+    // tasks handed to the pool, run by the test in the order it chooses
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final ThreadPoolExecutor manualExecutor =
+            new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()) {
+                @Override
+                public void execute(Runnable command) {
+                    tasks.add(command);
+                }
+            };
+
+    @BeforeEach
+    void setUp() {
+        fileStorageProperties = new FileStorageProperties();
+        fileStorageProperties.setThumbnailSizes(List.of(256, 64));
+        fileStorageProperties.setThumbnailThreads(1);
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new ProfileImageThumbnails(fileStorageProperties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.close();
+        manualExecutor.shutdownNow();
+    }
+
+    @Test
+    void testGetSize() {
+        // When
+        // Then
+        assertThat(underTest.getSize(null)).isNull();
+        assertThat(underTest.getSize(32)).isEqualTo(64);
+        assertThat(underTest.getSize(64)).isEqualTo(64);
+        assertThat(underTest.getSize(150)).isEqualTo(256);
+        assertThat(underTest.getSize(512)).isNull();
+    }
+
+    @Test
+    void testGenerate() throws IOException {
+        // Given
+        StoredFile profileImage = givenProfileImage("hash", 1200, 600, ".png");
+
+        // When
+        underTest.generate(profileImage);
+
+        // Then
+        BufferedImage small = ImageIO.read(underTest.getPath(profileImage.path(), "hash", 64).toFile());
+        BufferedImage large = ImageIO.read(underTest.getPath(profileImage.path(), "hash", 256).toFile());
+        assertThat(small.getWidth()).isEqualTo(64);
+        assertThat(small.getHeight()).isEqualTo(32);
+        assertThat(large.getWidth()).isEqualTo(256);
+        assertThat(large.getHeight()).isEqualTo(128);
+        assertThat(Path.of(profileImage.path()).resolveSibling("thumbnails")).isDirectoryNotContaining("glob:**.tmp");
+    }
+
+    @Test
+    void testGenerate_SmallImageIsNotUpscaled() throws IOException {
+        // Given
+        StoredFile profileImage = givenProfileImage("hash", 100, 40, ".jpg");
+
+        // When
+        underTest.generate(profileImage);
+
+        // Then
+        Path large = underTest.getPath(profileImage.path(), "hash", 256);
+        assertThat(ImageIO.read(large.toFile()).getWidth()).isEqualTo(100);
+    }
+
+    @Test
+    void testGenerate_DeletesThumbnailsOfPreviousImage() throws IOException {
+        // Given
+        StoredFile oldProfileImage = givenProfileImage("oldHash", 300, 300, ".png");
+        underTest.generate(oldProfileImage);
+        StoredFile profileImage = givenProfileImage("newHash", 300, 300, ".png");
+
+        // When
+        underTest.generate(profileImage);
+
+        // Then
+        assertThat(underTest.getPath(profileImage.path(), "oldHash", 64)).doesNotExist();
+        assertThat(underTest.getPath(profileImage.path(), "newHash", 64)).exists();
+    }
+
+    @Test
+    void testGenerateAsync_OverlappingUploadsKeepThumbnailsOfNewest() throws IOException {
+        // Given
+        ProfileImageThumbnails thumbnails =
+                new ProfileImageThumbnails(fileStorageProperties, meterRegistry, manualExecutor);
+        int customerId = RANDOM.nextInt(2000, 3000);
+        StoredFile oldProfileImage = givenProfileImage(customerId, "oldHash", 300, 300, ".png");
+        thumbnails.generateAsync(oldProfileImage);
+        StoredFile profileImage = givenProfileImage(customerId, "newHash", 300, 300, ".jpg");
+        thumbnails.generateAsync(profileImage);
+
+        // When
+        // the second upload joins the queued job instead of racing it with a job of its own
+        List<Runnable> queued = List.copyOf(tasks);
+        queued.forEach(Runnable::run);
+
+        // Then
+        assertThat(queued).hasSize(1);
+        assertThat(thumbnails.getPath(profileImage.path(), "newHash", 64)).exists();
+        assertThat(thumbnails.getPath(profileImage.path(), "newHash", 256)).exists();
+        assertThat(thumbnails.getPath(oldProfileImage.path(), "oldHash", 64)).doesNotExist();
+    }
+
+    @Test
+    void testGenerateAsync_UploadAfterJobStartsNewJob() throws IOException {
+        // Given
+        ProfileImageThumbnails thumbnails =
+                new ProfileImageThumbnails(fileStorageProperties, meterRegistry, manualExecutor);
+        int customerId = RANDOM.nextInt(2000, 3000);
+        StoredFile oldProfileImage = givenProfileImage(customerId, "oldHash", 300, 300, ".png");
+        thumbnails.generateAsync(oldProfileImage);
+        tasks.remove(0).run();
+
+        // When
+        StoredFile profileImage = givenProfileImage(customerId, "newHash", 300, 300, ".png");
+        thumbnails.generateAsync(profileImage);
+        tasks.remove(0).run();
+
+        // Then
+        assertThat(tasks).isEmpty();
+        assertThat(thumbnails.getPath(profileImage.path(), "newHash", 64)).exists();
+        assertThat(thumbnails.getPath(profileImage.path(), "oldHash", 64)).doesNotExist();
+    }
+
+    @Test
+    void testGenerate_UnsupportedImage() throws IOException {
+        // Given
+        int customerId = RANDOM.nextInt(1, 1000);
+        Path path = Path.of(PROFILE_IMAGE_DIRECTORY.formatted(customerId) + "profile-image.png");
+        Files.createDirectories(path.getParent());
+        Files.write(path, "not an image".getBytes());
+
+        // When
+        underTest.generate(new StoredFile(path.toString(), "hash"));
+
+        // Then
+        assertThat(underTest.getPath(path.toString(), "hash", 64)).doesNotExist();
+    }
+
+    @Test
+    void testGetPath() {
+        // When
+        Path actual = underTest.getPath(PROFILE_IMAGE_DIRECTORY.formatted(1) + "1-profile-image.jpg", "hash", 64);
+
+        // Then
+        assertThat(actual).isEqualTo(Path.of(PROFILE_IMAGE_DIRECTORY.formatted(1), "thumbnails", "hash-64.jpg"));
+    }
+
+    private StoredFile givenProfileImage(String contentHash, int width, int height, String extension) throws IOException {
+        return givenProfileImage(RANDOM.nextInt(1000, 2000), contentHash, width, height, extension);
+    }
+
+    private StoredFile givenProfileImage(int customerId, String contentHash, int width, int height, String extension)
+            throws IOException {
+        Path path = Path.of(PROFILE_IMAGE_DIRECTORY.formatted(customerId) + "profile-image" + extension);
+        Files.createDirectories(path.getParent());
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, RANDOM.nextInt());
+            }
+        }
+        ImageIO.write(image, extension.substring(1), path.toFile());
+        return new StoredFile(path.toString(), contentHash);
+    }
+}
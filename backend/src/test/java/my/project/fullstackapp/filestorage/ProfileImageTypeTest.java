@@ -0,0 +1,74 @@
+package my.project.fullstackapp.filestorage;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfileImageTypeTest {
+
+    @Test
+    void testDetect_Jpeg() throws IOException {
+        // Given
+        InputStream inputStream = new BufferedInputStream(new ByteArrayInputStream(image("jpg")));
+
+        // When
+        // Then
+        assertThat(ProfileImageType.detect(inputStream)).contains(ProfileImageType.JPEG);
+        assertThat(inputStream.readAllBytes()).isEqualTo(image("jpg"));
+    }
+
+    @Test
+    void testDetect_Png() throws IOException {
+        // When
+        // Then
+        assertThat(ProfileImageType.detect(new ByteArrayInputStream(image("png")))).contains(ProfileImageType.PNG);
+    }
+
+    @Test
+    void testDetect_Webp() throws IOException {
+        // Given
+        byte[] webp = "RIFF$\0\0\0WEBPVP8 ".getBytes(StandardCharsets.ISO_8859_1);
+
+        // When
+        // Then
+        assertThat(ProfileImageType.detect(new ByteArrayInputStream(webp))).contains(ProfileImageType.WEBP);
+    }
+
+    @Test
+    void testDetect_UnsupportedContent() throws IOException {
+        // Given
+        byte[] html = "<html><script>alert(1)</script></html>".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        // Then
+        assertThat(ProfileImageType.detect(new ByteArrayInputStream(html))).isEmpty();
+        assertThat(ProfileImageType.detect(new ByteArrayInputStream(new byte[]{(byte) 0xFF}))).isEmpty();
+    }
+
+    @Test
+    void testFromFileName() {
+        // When
+        // Then
+        assertThat(ProfileImageType.fromFileName("1-profile-image.JPEG")).contains(ProfileImageType.JPEG);
+        assertThat(ProfileImageType.fromFileName("hash-64.png")).contains(ProfileImageType.PNG);
+        assertThat(ProfileImageType.fromFileName("1-profile-image.html")).isEmpty();
+        assertThat(ProfileImageType.fromFileName("1-profile-image.svg")).isEmpty();
+        assertThat(ProfileImageType.fromFileName("1-profile-image")).isEmpty();
+        assertThat(ProfileImageType.fromFileName(null)).isEmpty();
+    }
+
+    private static byte[] image(String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), format, out);
+        return out.toByteArray();
+    }
+}
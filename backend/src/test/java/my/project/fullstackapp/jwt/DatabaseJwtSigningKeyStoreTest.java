@@ -0,0 +1,92 @@
+package my.project.fullstackapp.jwt;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class DatabaseJwtSigningKeyStoreTest {
+
+    private static final String KEY_ENCRYPTION_KEY = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private final JwtSigningKeyRepository jwtSigningKeyRepository = mock(JwtSigningKeyRepository.class);
+    private final InMemoryJwtSigningKeyStore generated = new InMemoryJwtSigningKeyStore();
+
+    @Test
+    void testAdd_StoresPrivateKeyEncrypted() {
+        // Given
+        DatabaseJwtSigningKeyStore underTest = new DatabaseJwtSigningKeyStore(jwtSigningKeyRepository, properties());
+        SigningKey signingKey = signingKey();
+        ArgumentCaptor<JwtSigningKeyEntity> entity = ArgumentCaptor.forClass(JwtSigningKeyEntity.class);
+
+        // When
+        underTest.add(signingKey);
+
+        // Then
+        verify(jwtSigningKeyRepository).saveAndFlush(entity.capture());
+        assertThat(entity.getValue().getPrivateKey()).isNotEqualTo(signingKey.privateKey().getEncoded());
+        when(jwtSigningKeyRepository.findAllByOrderByGenerationAsc()).thenReturn(List.of(entity.getValue()));
+        assertThat(underTest.findAll()).containsExactly(signingKey);
+    }
+
+    @Test
+    void testFindAll_Exception_RowOfAnotherKey() {
+        // Given
+        DatabaseJwtSigningKeyStore underTest = new DatabaseJwtSigningKeyStore(jwtSigningKeyRepository, properties());
+        ArgumentCaptor<JwtSigningKeyEntity> entity = ArgumentCaptor.forClass(JwtSigningKeyEntity.class);
+        underTest.add(signingKey());
+        verify(jwtSigningKeyRepository).saveAndFlush(entity.capture());
+        entity.getValue().setId("other-key");
+        when(jwtSigningKeyRepository.findAllByOrderByGenerationAsc()).thenReturn(List.of(entity.getValue()));
+
+        // When
+        // Then
+        assertThatThrownBy(underTest::findAll)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Cannot decode signing key other-key");
+    }
+
+    @Test
+    void testFindAll_Exception_OtherKeyEncryptionKey() {
+        // Given
+        ArgumentCaptor<JwtSigningKeyEntity> entity = ArgumentCaptor.forClass(JwtSigningKeyEntity.class);
+        new DatabaseJwtSigningKeyStore(jwtSigningKeyRepository, properties()).add(signingKey());
+        verify(jwtSigningKeyRepository).saveAndFlush(entity.capture());
+        when(jwtSigningKeyRepository.findAllByOrderByGenerationAsc()).thenReturn(List.of(entity.getValue()));
+        JwtProperties otherProperties = new JwtProperties();
+        byte[] otherKey = new byte[32];
+        Arrays.fill(otherKey, (byte) 1);
+        otherProperties.setKeyEncryptionKey(Base64.getEncoder().encodeToString(otherKey));
+        DatabaseJwtSigningKeyStore underTest = new DatabaseJwtSigningKeyStore(jwtSigningKeyRepository, otherProperties);
+
+        // When
+        // Then
+        assertThatThrownBy(underTest::findAll).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testConstructor_Exception_MissingKeyEncryptionKey() {
+        // When
+        // Then
+        assertThatThrownBy(() -> new DatabaseJwtSigningKeyStore(jwtSigningKeyRepository, new JwtProperties()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("jwt.key-encryption-key must be a base64 AES key of 16, 24 or 32 bytes");
+    }
+
+    private static JwtProperties properties() {
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setKeyEncryptionKey(KEY_ENCRYPTION_KEY);
+        return jwtProperties;
+    }
+
+    private SigningKey signingKey() {
+        new JwtSigningKeys(new JwtProperties(), generated);
+        return generated.findAll().get(0);
+    }
+}
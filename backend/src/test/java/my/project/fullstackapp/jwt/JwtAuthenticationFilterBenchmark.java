@@ -0,0 +1,60 @@
+package my.project.fullstackapp.jwt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.project.fullstackapp.customer.Customer;
+import my.project.fullstackapp.customer.Gender;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The whole per-request authentication step: header parsing, verification, the revocation and
+ * invalidation checks and building the principal, either from the claims (stateless) or through
+ * the UserDetailsService (here a constant lookup, so only the filter's own cost is measured).
+ * The same token is sent every time, so verification is served by the VerifiedTokenCache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"true", "false"})
+    private boolean statelessAuthentication;
+
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setStatelessAuthentication(statelessAuthentication);
+        JwtUtil jwtUtil =
+                new JwtUtil(jwtProperties, new JwtSigningKeys(jwtProperties, new InMemoryJwtSigningKeyStore()));
+        Customer customer = new Customer(1, "Nikolai", "nikolai@gmail.com", "password", 28, Gender.MALE);
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(jwtUtil, jwtProperties, new SimpleMeterRegistry());
+        jwtAuthenticationFilter = new JwtAuthenticationFilter(verifiedTokenCache, username -> customer, jwtProperties,
+                new TokenInvalidationRegistry(jwtProperties), new TokenRevocationList(jwtProperties, verifiedTokenCache));
+        authorization = "Bearer " + jwtUtil.issueToken("nikolai@gmail.com", "ROLE_USER");
+    }
+
+    @Benchmark
+    public Authentication doFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customers");
+        request.setServletPath("/api/v1/customers");
+        request.addHeader("Authorization", authorization);
+        try {
+            jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package my.project.fullstackapp.jwt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.project.fullstackapp.customer.Customer;
+import my.project.fullstackapp.customer.CustomerPrincipalChangedEvent;
+import my.project.fullstackapp.customer.Gender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    private JwtAuthenticationFilter underTest;
+    @Mock
+    private UserDetailsService userDetailsService;
+    private final JwtProperties jwtProperties = new JwtProperties();
+    private final JwtUtil jwtUtil =
+            new JwtUtil(jwtProperties, new JwtSigningKeys(jwtProperties, new InMemoryJwtSigningKeyStore()));
+    private final TokenInvalidationRegistry tokenInvalidationRegistry = new TokenInvalidationRegistry(jwtProperties);
+    private final VerifiedTokenCache verifiedTokenCache =
+            new VerifiedTokenCache(jwtUtil, jwtProperties, new SimpleMeterRegistry());
+    private final TokenRevocationList tokenRevocationList = new TokenRevocationList(jwtProperties, verifiedTokenCache);
+
+    @BeforeEach
+    void setUp() {
+        underTest = new JwtAuthenticationFilter(
+                verifiedTokenCache, userDetailsService, jwtProperties, tokenInvalidationRegistry, tokenRevocationList);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testDoFilter_StatelessFromClaims() throws Exception {
+        // Given
+        MockHttpServletRequest request = authenticatedRequest("GET", "/api/v1/customers",
+                jwtUtil.issueToken("nikolai@gmail.com", "ROLE_USER"));
+
+        // When
+        underTest.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getPrincipal()).isEqualTo("nikolai@gmail.com");
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER");
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void testDoFilter_InvalidatedSubjectIsCheckedAgainstDatabase() throws Exception {
+        // Given
+        String token = jwtUtil.issueToken("nikolai@gmail.com", "ROLE_USER");
+        tokenInvalidationRegistry.onCustomerPrincipalChanged(new CustomerPrincipalChangedEvent("nikolai@gmail.com"));
+        when(userDetailsService.loadUserByUsername("nikolai@gmail.com"))
+                .thenThrow(new UsernameNotFoundException("Username not found"));
+
+        // When
+        underTest.doFilter(authenticatedRequest("GET", "/api/v1/customers", token),
+                new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void testDoFilter_InvalidatedSubjectStillExists() throws Exception {
+        // Given
+        String token = jwtUtil.issueToken("nikolai@gmail.com", "ROLE_USER");
+        tokenInvalidationRegistry.invalidate("nikolai@gmail.com");
+        Customer customer = new Customer(1, "Nikolai", "nikolai@gmail.com", "password", 28, Gender.MALE);
+        when(userDetailsService.loadUserByUsername("nikolai@gmail.com")).thenReturn(customer);
+
+        // When
+        underTest.doFilter(authenticatedRequest("GET", "/api/v1/customers", token),
+                new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).isEqualTo(customer);
+    }
+
+    @Test
+    void testDoFilter_SkipsPublicEndpoints() throws Exception {
+        // Given
+        MockHttpServletRequest request = authenticatedRequest("POST", "/api/v1/auth/login",
+                jwtUtil.issueToken("nikolai@gmail.com", "ROLE_USER"));
+
+        // When
+        underTest.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void testDoFilter_InvalidToken() throws Exception {
+        // Given
+        MockHttpServletRequest request = authenticatedRequest("GET", "/api/v1/customers", "not-a-token");
+
+        // When
+        underTest.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void testDoFilter_RevokedToken() throws Exception {
+        // Given
+        String token = jwtUtil.issueToken("nikolai@gmail.com", "ROLE_USER");
+        VerifiedToken verifiedToken = jwtUtil.verify(token);
+        tokenRevocationList.revoke(verifiedToken.id(), verifiedToken.expiresAt());
+
+        // When
+        underTest.doFilter(authenticatedRequest("GET", "/api/v1/customers", token),
+                new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void testDoFilter_RefreshTokenIsNotAnAccessToken() throws Exception {
+        // Given
+        String token = jwtUtil.issueRefreshToken("nikolai@gmail.com");
+
+        // When
+        underTest.doFilter(authenticatedRequest("GET", "/api/v1/customers", token),
+                new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    private MockHttpServletRequest authenticatedRequest(String method, String path, String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
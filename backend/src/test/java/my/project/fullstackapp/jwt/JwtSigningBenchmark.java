@@ -0,0 +1,71 @@
+package my.project.fullstackapp.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Sign and verify cost of the shared-secret HS256 against the asymmetric ES256 and RS256 (used by
+ * JwtUtil). EdDSA is not supported by jjwt 0.11. Run with the benchmark profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtSigningBenchmark {
+
+    @Param({"HS256", "ES256", "RS256"})
+    private String algorithm;
+
+    private SignatureAlgorithm signatureAlgorithm;
+    private Key signingKey;
+    private JwtParser jwtParser;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        signatureAlgorithm = SignatureAlgorithm.forName(algorithm);
+        Key verificationKey;
+        if (signatureAlgorithm.isHmac()) {
+            signingKey = Keys.secretKeyFor(signatureAlgorithm);
+            verificationKey = signingKey;
+        } else {
+            KeyPair keyPair = Keys.keyPairFor(signatureAlgorithm);
+            signingKey = keyPair.getPrivate();
+            verificationKey = keyPair.getPublic();
+        }
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(verificationKey)
+                .build();
+        token = sign();
+    }
+
+    @Benchmark
+    public String sign() {
+        Instant now = Instant.now();
+        return Jwts.builder()
+                .setSubject("nikolai@gmail.com")
+                .claim("scopes", new String[]{"ROLE_USER"})
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(now.plus(15, ChronoUnit.MINUTES)))
+                .signWith(signingKey, signatureAlgorithm)
+                .compact();
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return jwtParser.parseClaimsJws(token).getBody();
+    }
+}
@@ -0,0 +1,71 @@
+package my.project.fullstackapp.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.Key;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Token issuing at login and per-request verification. threeParses is the former getSubject +
+ * isTokenValid sequence (three HS256 parses, each rebuilding the key and parser) that verify()
+ * replaced; verify_cached is a repeated token served by the VerifiedTokenCache. Run with the
+ * benchmark profile; the gc profiler reports gc.alloc.rate.norm per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET_KEY = "foobar_123456789_foobar_123456789_foobar_123456789_foobar_123456789";
+
+    private final JwtUtil jwtUtil = new JwtUtil(new JwtProperties(),
+            new JwtSigningKeys(new JwtProperties(), new InMemoryJwtSigningKeyStore()));
+    private final VerifiedTokenCache verifiedTokenCache =
+            new VerifiedTokenCache(jwtUtil, new JwtProperties(), new SimpleMeterRegistry());
+    private String token;
+
+    @Setup
+    public void setUp() {
+        token = jwtUtil.issueToken("nikolai@gmail.com", "ROLE_USER");
+    }
+
+    @Benchmark
+    public String issueToken() {
+        return jwtUtil.issueToken("nikolai@gmail.com", "ROLE_USER");
+    }
+
+    @Benchmark
+    public boolean threeParses() {
+        String subject = claims(token).getSubject();
+        return claims(token).getSubject().equals(subject)
+                && !claims(token).getExpiration().before(Date.from(Instant.now()));
+    }
+
+    @Benchmark
+    public VerifiedToken verify() {
+        return jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public VerifiedToken verify_cached() {
+        return verifiedTokenCache.verify(token);
+    }
+
+    private static Claims claims(String token) {
+        Key key = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -0,0 +1,194 @@
+package my.project.fullstackapp.jwt;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    private final JwtProperties jwtProperties = new JwtProperties();
+    private final InMemoryJwtSigningKeyStore jwtSigningKeyStore = new InMemoryJwtSigningKeyStore();
+    private final JwtSigningKeys jwtSigningKeys = new JwtSigningKeys(jwtProperties, jwtSigningKeyStore);
+    private final JwtUtil underTest = new JwtUtil(jwtProperties, jwtSigningKeys);
+
+    @Test
+    void testVerify() {
+        // Given
+        String token = underTest.issueToken("nikolai@gmail.com", List.of("ROLE_USER"));
+
+        // When
+        VerifiedToken actual = underTest.verify(token);
+
+        // Then
+        assertThat(actual.subject()).isEqualTo("nikolai@gmail.com");
+        assertThat(actual.scopes()).containsExactly("ROLE_USER");
+        assertThat(actual.expiresAt()).isEqualTo(actual.issuedAt().plus(15, ChronoUnit.MINUTES));
+        assertThat(actual.type()).isEqualTo(TokenType.ACCESS);
+        assertThat(actual.id()).isNotNull();
+    }
+
+    @Test
+    void testVerify_RefreshToken() {
+        // Given
+        String token = underTest.issueRefreshToken("nikolai@gmail.com", "family");
+
+        // When
+        VerifiedToken actual = underTest.verify(token);
+
+        // Then
+        assertThat(actual.subject()).isEqualTo("nikolai@gmail.com");
+        assertThat(actual.type()).isEqualTo(TokenType.REFRESH);
+        assertThat(actual.family()).isEqualTo("family");
+        assertThat(actual.scopes()).isEmpty();
+        assertThat(actual.expiresAt()).isEqualTo(actual.issuedAt().plus(15, ChronoUnit.DAYS));
+    }
+
+    @Test
+    void testVerify_Exception_TamperedToken() {
+        // Given
+        String token = underTest.issueToken("nikolai@gmail.com", "ROLE_USER");
+        String[] parts = token.split("\\.");
+        String payload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"admin@gmail.com\"}".getBytes(StandardCharsets.UTF_8));
+        String tampered = parts[0] + "." + payload + "." + parts[2];
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.verify(tampered))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void testVerify_Exception_HmacTokenWithoutKeyId() {
+        // Given
+        String token = Jwts.builder()
+                .setSubject("nikolai@gmail.com")
+                .signWith(Keys.hmacShaKeyFor("foobar_123456789_foobar_123456789_foobar_123456789_foobar_123456789"
+                        .getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.verify(token))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void testVerify_AfterKeyRotation() {
+        // Given
+        String token = underTest.issueToken("nikolai@gmail.com", "ROLE_USER");
+
+        // When
+        jwtSigningKeys.rotate();
+        String rotated = underTest.issueToken("nikolai@gmail.com", "ROLE_USER");
+
+        // Then
+        assertThat(underTest.verify(token).subject()).isEqualTo("nikolai@gmail.com");
+        assertThat(underTest.verify(rotated).subject()).isEqualTo("nikolai@gmail.com");
+        assertThat(keyId(rotated)).isNotEqualTo(keyId(token));
+    }
+
+    @Test
+    void testVerify_AfterRestartFromSameStore() {
+        // Given
+        String token = underTest.issueToken("nikolai@gmail.com", "ROLE_USER");
+        String refreshToken = underTest.issueRefreshToken("nikolai@gmail.com");
+        jwtSigningKeys.rotate();
+
+        // When
+        JwtUtil restarted = new JwtUtil(jwtProperties, new JwtSigningKeys(jwtProperties, jwtSigningKeyStore));
+
+        // Then
+        assertThat(restarted.verify(token).subject()).isEqualTo("nikolai@gmail.com");
+        assertThat(restarted.verify(refreshToken).type()).isEqualTo(TokenType.REFRESH);
+        assertThat(keyId(restarted.issueToken("nikolai@gmail.com", "ROLE_USER")))
+                .isEqualTo(keyId(underTest.issueToken("nikolai@gmail.com", "ROLE_USER")));
+    }
+
+    @Test
+    void testRefresh_PicksUpRotationOfAnotherInstance() {
+        // Given
+        JwtSigningKeys other = new JwtSigningKeys(jwtProperties, jwtSigningKeyStore);
+        JwtUtil otherJwtUtil = new JwtUtil(jwtProperties, other);
+        other.rotate();
+
+        // When
+        String token = otherJwtUtil.issueToken("nikolai@gmail.com", "ROLE_USER");
+        VerifiedToken beforeRefresh = underTest.verify(token);
+        jwtSigningKeys.refresh();
+
+        // Then
+        assertThat(beforeRefresh.subject()).isEqualTo("nikolai@gmail.com");
+        assertThat(keyId(underTest.issueToken("nikolai@gmail.com", "ROLE_USER"))).isEqualTo(keyId(token));
+        assertThat(jwtSigningKeyStore.findAll()).hasSize(3);
+    }
+
+    @Test
+    void testRefresh_RotatesOnceDue() {
+        // Given
+        String token = underTest.issueToken("nikolai@gmail.com", "ROLE_USER");
+        jwtProperties.setKeyRotationInterval(Duration.ZERO);
+        JwtSigningKeys other = new JwtSigningKeys(jwtProperties, jwtSigningKeyStore);
+
+        // When
+        jwtSigningKeys.refresh();
+        other.refresh();
+
+        // Then
+        assertThat(jwtSigningKeyStore.findAll()).hasSize(4);
+        assertThat(keyId(underTest.issueToken("nikolai@gmail.com", "ROLE_USER"))).isNotEqualTo(keyId(token));
+        assertThat(underTest.verify(token).subject()).isEqualTo("nikolai@gmail.com");
+    }
+
+    @Test
+    void testVerify_Exception_RetiredKeyExpired() {
+        // Given
+        jwtProperties.setRefreshTokenLifetime(Duration.ZERO);
+        String token = underTest.issueToken("nikolai@gmail.com", "ROLE_USER");
+
+        // When
+        jwtSigningKeys.rotate();
+        jwtSigningKeys.rotate();
+
+        // Then
+        assertThatThrownBy(() -> underTest.verify(token))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testJwks() {
+        // Given
+        String token = underTest.issueToken("nikolai@gmail.com", "ROLE_USER");
+
+        // When
+        jwtSigningKeys.rotate();
+        var keys = (List<Map<String, Object>>) jwtSigningKeys.jwks().get("keys");
+
+        // Then
+        assertThat(keys).hasSize(3);
+        assertThat(keys).extracting(key -> key.get("kid")).contains(keyId(token));
+        assertThat(keys).allSatisfy(key -> {
+            assertThat(key).containsEntry("kty", "RSA").containsEntry("alg", "RS256").containsEntry("e", "AQAB");
+            // 2048-bit modulus without a sign byte
+            assertThat(Base64.getUrlDecoder().decode((String) key.get("n"))).hasSize(256);
+        });
+    }
+
+    private static String keyId(String token) {
+        String header = new String(Base64.getUrlDecoder().decode(token.split("\\.")[0]), StandardCharsets.UTF_8);
+        return header.replaceAll(".*\"kid\":\"([^\"]+)\".*", "$1");
+    }
+}
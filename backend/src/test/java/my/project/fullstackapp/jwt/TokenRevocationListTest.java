@@ -0,0 +1,67 @@
+package my.project.fullstackapp.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class TokenRevocationListTest {
+
+    private final VerifiedTokenCache verifiedTokenCache = mock(VerifiedTokenCache.class);
+    private final Instant until = Instant.now().plus(1, ChronoUnit.HOURS);
+
+    @Test
+    void testRevoke() {
+        // Given
+        TokenRevocationList underTest = new TokenRevocationList(new JwtProperties(), verifiedTokenCache);
+
+        // When
+        boolean first = underTest.revoke("token-id", until);
+        boolean second = underTest.revoke("token-id", until);
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        assertThat(underTest.isRevoked("token-id")).isTrue();
+        assertThat(underTest.isRevoked("other-id")).isFalse();
+        assertThat(underTest.isRevoked(null)).isFalse();
+        verify(verifiedTokenCache, times(1)).evict("token-id");
+    }
+
+    @Test
+    void testRevoke_GrowsBeyondCapacity() {
+        // Given
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setRevocationCapacity(16);
+        TokenRevocationList underTest = new TokenRevocationList(jwtProperties, verifiedTokenCache);
+        var ids = IntStream.range(0, 1000).mapToObj(i -> UUID.randomUUID().toString()).toList();
+
+        // When
+        ids.forEach(id -> underTest.revoke(id, until));
+
+        // Then
+        assertThat(underTest.size()).isEqualTo(1000);
+        assertThat(ids).allMatch(underTest::isRevoked);
+    }
+
+    @Test
+    void testBloomFilter_FalsePositiveRate() {
+        // Given
+        BloomFilter underTest = new BloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> underTest.put("revoked-" + i));
+
+        // When
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> underTest.mightContain("valid-" + i))
+                .count();
+
+        // Then
+        assertThat(IntStream.range(0, 10_000)).allMatch(i -> underTest.mightContain("revoked-" + i));
+        assertThat(falsePositives).isLessThan(300);
+    }
+}
@@ -0,0 +1,140 @@
+package my.project.fullstackapp.jwt;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class VerifiedTokenCacheTest {
+
+    private VerifiedTokenCache underTest;
+    private final JwtProperties jwtProperties = new JwtProperties();
+    private final AtomicLong nanos = new AtomicLong();
+    private JwtUtil jwtUtil;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = spy(new JwtUtil(jwtProperties,
+                new JwtSigningKeys(jwtProperties, new InMemoryJwtSigningKeyStore())));
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new VerifiedTokenCache(jwtUtil, jwtProperties, meterRegistry, nanos::get);
+    }
+
+    @Test
+    void testVerify_Cached() {
+        // Given
+        String token = jwtUtil.issueToken("nikolai@gmail.com", "ROLE_USER");
+
+        // When
+        VerifiedToken first = underTest.verify(token);
+        VerifiedToken second = underTest.verify(token);
+
+        // Then
+        assertThat(second).isEqualTo(first);
+        verify(jwtUtil, times(1)).verify(token);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "verified-tokens").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.estimated.size.bytes").tag("cache", "verified-tokens")
+                .gauge().value()).isPositive();
+    }
+
+    @Test
+    void testVerify_ExpiresWithToken() {
+        // Given
+        String token = jwtUtil.issueToken("nikolai@gmail.com", "ROLE_USER");
+        underTest.verify(token);
+
+        // When
+        nanos.addAndGet(jwtProperties.getAccessTokenLifetime().plusSeconds(1).toNanos());
+        underTest.verify(token);
+
+        // Then
+        verify(jwtUtil, times(2)).verify(token);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "verified-tokens").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testVerify_CachedUntilTokenExpires() {
+        // Given
+        String token = jwtUtil.issueToken("nikolai@gmail.com", "ROLE_USER");
+        underTest.verify(token);
+
+        // When
+        nanos.addAndGet(jwtProperties.getAccessTokenLifetime().minusSeconds(5).toNanos());
+        underTest.verify(token);
+        nanos.addAndGet(Duration.ofSeconds(10).toNanos());
+        underTest.verify(token);
+
+        // Then
+        verify(jwtUtil, times(2)).verify(token);
+        assertThat(underTest.indexedIds()).isEqualTo(1);
+    }
+
+    @Test
+    void testVerify_ExpiredEntryLeavesIndex() {
+        // Given
+        String token = jwtUtil.issueToken("nikolai@gmail.com", "ROLE_USER");
+        underTest.verify(token);
+
+        // When
+        nanos.addAndGet(jwtProperties.getAccessTokenLifetime().plusSeconds(1).toNanos());
+
+        // Then
+        assertThat(underTest.indexedIds()).isZero();
+    }
+
+    @Test
+    void testEvict_Family() {
+        // Given
+        String first = jwtUtil.issueRefreshToken("nikolai@gmail.com", "family");
+        String second = jwtUtil.issueRefreshToken("nikolai@gmail.com", "family");
+        String other = jwtUtil.issueRefreshToken("nikolai@gmail.com", "other-family");
+        underTest.verify(first);
+        underTest.verify(second);
+        underTest.verify(other);
+
+        // When
+        underTest.evict("family");
+        underTest.verify(first);
+        underTest.verify(second);
+        underTest.verify(other);
+
+        // Then
+        verify(jwtUtil, times(2)).verify(first);
+        verify(jwtUtil, times(2)).verify(second);
+        verify(jwtUtil, times(1)).verify(other);
+    }
+
+    @Test
+    void testEvict() {
+        // Given
+        String token = jwtUtil.issueToken("nikolai@gmail.com", "ROLE_USER");
+        VerifiedToken verifiedToken = underTest.verify(token);
+
+        // When
+        underTest.evict(verifiedToken.id());
+        underTest.verify(token);
+
+        // Then
+        verify(jwtUtil, times(2)).verify(token);
+        assertThat(underTest.indexedIds()).isEqualTo(1);
+    }
+
+    @Test
+    void testVerify_Exception_InvalidTokenNotCached() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.verify("not-a-token"))
+                .isInstanceOf(JwtException.class);
+        assertThat(underTest.estimatedSizeBytes()).isZero();
+    }
+}
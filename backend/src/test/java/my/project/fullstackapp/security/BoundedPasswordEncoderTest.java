@@ -0,0 +1,210 @@
+package my.project.fullstackapp.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.project.fullstackapp.exception.ApiError;
+import my.project.fullstackapp.exception.DefaultExceptionHandler;
+import my.project.fullstackapp.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.method.annotation.ExceptionHandlerMethodResolver;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BoundedPasswordEncoderTest {
+
+    private BoundedPasswordEncoder underTest;
+    @Mock
+    private PasswordEncoder delegate;
+    @Mock
+    private MessageSource messageSource;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        PasswordEncoderProperties properties = new PasswordEncoderProperties();
+        properties.setThreads(1);
+        properties.setQueueCapacity(1);
+        properties.setRetryAfter(Duration.ofSeconds(2));
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new BoundedPasswordEncoder(delegate, properties, messageSource, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.close();
+    }
+
+    @Test
+    void testEncodeAndMatches() {
+        // Given
+        when(delegate.encode("password")).thenReturn("hash");
+        when(delegate.matches("password", "hash")).thenReturn(true);
+
+        // When
+        String encoded = underTest.encode("password");
+        boolean matches = underTest.matches("password", "hash");
+
+        // Then
+        assertThat(encoded).isEqualTo("hash");
+        assertThat(matches).isTrue();
+        assertThat(meterRegistry.get("password.encoder.duration").tag("operation", "encode").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testEncode_Exception_Saturated() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.encode("password")).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+        when(messageSource.getMessage("exception.server.passwordEncoderBusy", null, Locale.getDefault()))
+                .thenReturn("Exception message");
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> underTest.encode("password"));
+        started.await();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> underTest.encode("password"));
+        while (meterRegistry.get("executor.queued").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.encode("password"))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .hasMessage("Exception message")
+                .extracting("retryAfter").isEqualTo(Duration.ofSeconds(2));
+        assertThat(meterRegistry.get("password.encoder.rejections").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get()).isEqualTo("hash");
+        assertThat(queued.get()).isEqualTo("hash");
+    }
+
+    @Test
+    void testAuthenticate_UnknownUser_Saturated_RespondsServiceUnavailable() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.encode("password")).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+        when(messageSource.getMessage("exception.server.passwordEncoderBusy", null, Locale.getDefault()))
+                .thenReturn("Exception message");
+        DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
+        authenticationProvider.setPasswordEncoder(underTest);
+        authenticationProvider.setUserDetailsService(username -> {
+            throw new UsernameNotFoundException(username);
+        });
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> underTest.encode("password"));
+        started.await();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> underTest.encode("password"));
+        while (meterRegistry.get("executor.queued").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        // When
+        Throwable rejected = catchThrowable(() -> authenticationProvider.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("unknown@gmail.com", "password")));
+        Throwable wrapped = new InternalAuthenticationServiceException(rejected.getMessage(), rejected);
+
+        // Then
+        assertThat(List.of(rejected, wrapped)).allSatisfy(exception -> {
+            ResponseEntity<ApiError> actual = handle(exception);
+            assertThat(actual.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+            assertThat(actual.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+            assertThat(actual.getBody().message()).isEqualTo("Exception message");
+        });
+
+        release.countDown();
+        assertThat(running.get()).isEqualTo("hash");
+        assertThat(queued.get()).isEqualTo("hash");
+    }
+
+    @Test
+    void testEncodeAll_BatchLargerThanPool() {
+        // Given
+        when(delegate.encode(anyString())).thenAnswer(invocation -> "hash-" + invocation.getArgument(0));
+
+        // When
+        List<CompletableFuture<String>> encoded = underTest.encodeAll(List.of("a", "b", "c", "d"));
+
+        // Then
+        assertThat(encoded).map(CompletableFuture::join).containsExactly("hash-a", "hash-b", "hash-c", "hash-d");
+        assertThat(meterRegistry.get("password.encoder.rejections").counter().count()).isZero();
+    }
+
+    @Test
+    void testEncodeAll_Saturated_FailsOnlyRejected() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.encode("password")).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+        when(messageSource.getMessage("exception.server.passwordEncoderBusy", null, Locale.getDefault()))
+                .thenReturn("Exception message");
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> underTest.encode("password"));
+        started.await();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> underTest.encode("password"));
+        while (meterRegistry.get("executor.queued").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        // When
+        List<CompletableFuture<String>> encoded = underTest.encodeAll(List.of("rejected"));
+
+        // Then
+        assertThat(encoded).singleElement().satisfies(future -> assertThatThrownBy(future::join)
+                .hasCauseInstanceOf(ServiceUnavailableException.class)
+                .hasRootCauseMessage("Exception message"));
+        assertThat(meterRegistry.get("password.encoder.rejections").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get()).isEqualTo("hash");
+        assertThat(queued.get()).isEqualTo("hash");
+    }
+
+    // dispatches the way the controller advice does, to the handler closest to the exception type
+    @SuppressWarnings("unchecked")
+    private static ResponseEntity<ApiError> handle(Throwable exception) throws Exception {
+        Method handler = new ExceptionHandlerMethodResolver(DefaultExceptionHandler.class)
+                .resolveMethodByThrowable(exception);
+        return (ResponseEntity<ApiError>) handler.invoke(
+                new DefaultExceptionHandler(), exception, new MockHttpServletRequest("POST", "/api/v1/auth/login"));
+    }
+}
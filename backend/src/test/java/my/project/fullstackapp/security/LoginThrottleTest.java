@@ -0,0 +1,71 @@
+package my.project.fullstackapp.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.project.fullstackapp.exception.TooManyRequestsException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoginThrottleTest {
+
+    private LoginThrottle underTest;
+    @Mock
+    private MessageSource messageSource;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        LoginThrottleProperties properties = new LoginThrottleProperties();
+        properties.setUsernameCapacity(2);
+        properties.setAddressCapacity(3);
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new LoginThrottle(properties, messageSource, meterRegistry, () -> 0L);
+    }
+
+    @Test
+    void testCheckOrThrow_Username() {
+        // Given
+        when(messageSource.getMessage("exception.authentication.tooManyAttempts", null, Locale.getDefault()))
+                .thenReturn("Exception message");
+        underTest.checkOrThrow("nikolai@gmail.com", "10.0.0.1");
+        underTest.checkOrThrow("Nikolai@gmail.com ", "10.0.0.2");
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.checkOrThrow("nikolai@gmail.com", "10.0.0.3"))
+                .isInstanceOf(TooManyRequestsException.class)
+                .hasMessage("Exception message")
+                .extracting("retryAfter").isEqualTo(Duration.ofSeconds(30));
+        assertThat(meterRegistry.get("login.throttle.rejections").tag("bucket", "username").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testCheckOrThrow_Address() {
+        // Given
+        when(messageSource.getMessage("exception.authentication.tooManyAttempts", null, Locale.getDefault()))
+                .thenReturn("Exception message");
+        underTest.checkOrThrow("first@gmail.com", "10.0.0.1");
+        underTest.checkOrThrow("second@gmail.com", "10.0.0.1");
+        underTest.checkOrThrow("third@gmail.com", "10.0.0.1");
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.checkOrThrow("fourth@gmail.com", "10.0.0.1"))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThat(meterRegistry.get("login.throttle.rejections").tag("bucket", "address").counter().count())
+                .isEqualTo(1);
+        underTest.checkOrThrow("fourth@gmail.com", "10.0.0.2");
+    }
+}
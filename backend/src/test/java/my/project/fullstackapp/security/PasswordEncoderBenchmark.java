@@ -0,0 +1,40 @@
+package my.project.fullstackapp.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Hashes per second for each cost setting, to pick password-encoder.target-hash-duration against
+ * the login latency budget: one login costs one matches(), which takes as long as one encode().
+ * Run with the benchmark profile and -t <cores> to see the throughput of the whole password-encoder pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    @Param({"bcrypt-10", "bcrypt-11", "bcrypt-12", "bcrypt-13", "pbkdf2-310000", "pbkdf2-600000"})
+    private String encoder;
+
+    private PasswordEncoder passwordEncoder;
+
+    @Setup
+    public void setUp() {
+        String[] parts = encoder.split("-");
+        int cost = Integer.parseInt(parts[1]);
+        passwordEncoder = parts[0].equals(PasswordEncoders.BCRYPT)
+                ? new BCryptPasswordEncoder(cost)
+                : PasswordEncoders.pbkdf2(cost);
+    }
+
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode("password");
+    }
+}
@@ -0,0 +1,62 @@
+package my.project.fullstackapp.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PasswordEncodersTest {
+
+    @Test
+    void testDelegating_MatchesAndUpgradesLegacyBcrypt() {
+        // Given
+        PasswordEncoderProperties properties = new PasswordEncoderProperties();
+        properties.setBcryptStrength(5);
+        PasswordEncoder underTest = PasswordEncoders.delegating(properties);
+        String legacyHash = new BCryptPasswordEncoder(4).encode("password");
+
+        // When
+        String encoded = underTest.encode("password");
+
+        // Then
+        assertThat(underTest.matches("password", legacyHash)).isTrue();
+        assertThat(underTest.upgradeEncoding(legacyHash)).isTrue();
+        assertThat(encoded).startsWith("{bcrypt}$2a$05$");
+        assertThat(underTest.upgradeEncoding(encoded)).isFalse();
+    }
+
+    @Test
+    void testDelegating_Pbkdf2() {
+        // Given
+        PasswordEncoderProperties properties = new PasswordEncoderProperties();
+        properties.setEncodingId(PasswordEncoders.PBKDF2);
+        properties.setBcryptStrength(5);
+        properties.setPbkdf2Iterations(1000);
+        PasswordEncoder underTest = PasswordEncoders.delegating(properties);
+        String bcryptHash = "{bcrypt}" + new BCryptPasswordEncoder(5).encode("password");
+
+        // When
+        String encoded = underTest.encode("password");
+
+        // Then
+        assertThat(encoded).startsWith("{pbkdf2}");
+        assertThat(underTest.matches("password", encoded)).isTrue();
+        assertThat(underTest.matches("wrong", encoded)).isFalse();
+        assertThat(underTest.upgradeEncoding(encoded)).isFalse();
+        assertThat(underTest.upgradeEncoding(bcryptHash)).isTrue();
+    }
+
+    @Test
+    void testCalibrateBcryptStrength_Bounds() {
+        // When
+        int lowest = PasswordEncoders.calibrateBcryptStrength(Duration.ZERO);
+        int highest = PasswordEncoders.calibrateBcryptStrength(Duration.ofDays(1));
+
+        // Then
+        assertThat(lowest).isEqualTo(PasswordEncoders.MIN_BCRYPT_STRENGTH);
+        assertThat(highest).isEqualTo(PasswordEncoders.MAX_BCRYPT_STRENGTH);
+    }
+}
@@ -0,0 +1,68 @@
+package my.project.fullstackapp.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketLimiterTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final TokenBucketLimiter underTest =
+            new TokenBucketLimiter(3, Duration.ofSeconds(30), 1000, nanos::get);
+
+    @Test
+    void testTryAcquire_BurstThenRefill() {
+        // Given
+        IntStream.range(0, 3).forEach(i -> assertThat(underTest.tryAcquire("key")).isZero());
+
+        // When
+        Duration rejected = underTest.tryAcquire("key");
+        nanos.addAndGet(Duration.ofSeconds(10).toNanos());
+        Duration refilled = underTest.tryAcquire("key");
+
+        // Then
+        assertThat(rejected).isEqualTo(Duration.ofSeconds(10));
+        assertThat(refilled).isZero();
+        assertThat(underTest.tryAcquire("key")).isPositive();
+        assertThat(underTest.tryAcquire("other")).isZero();
+    }
+
+    @Test
+    void testTryAcquire_IdleBucketsEvicted() {
+        // Given
+        underTest.tryAcquire("key");
+
+        // When
+        nanos.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        // Then
+        assertThat(underTest.size()).isZero();
+    }
+
+    @Test
+    void testTryAcquire_Concurrent() throws Exception {
+        // Given
+        TokenBucketLimiter limiter = new TokenBucketLimiter(100, Duration.ofDays(1), 1000, nanos::get);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        var futures = IntStream.range(0, 1000)
+                .mapToObj(i -> executor.submit(() -> limiter.tryAcquire("key").isZero()))
+                .toList();
+        long acquired = 0;
+        for (Future<Boolean> future : futures) {
+            acquired += future.get() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(acquired).isEqualTo(100);
+    }
+}
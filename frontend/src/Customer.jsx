@@ -1,4 +1,4 @@
-import {Wrap, WrapItem, Spinner, Text} from '@chakra-ui/react'
+import {Wrap, WrapItem, Spinner, Text, Button, Center} from '@chakra-ui/react'
 import SidebarWithHeader from "./shared/SideBar.jsx";
 import {useEffect, useState} from "react";
 import {getCustomers} from "./services/client.js";
@@ -9,13 +9,16 @@ import CreateCustomerDrawer from "./components/customer/CreateCustomerDrawer.jsx
 const Customer = () => {
 
     const [customers, setCustomers] = useState([]);
+    const [next, setNext] = useState(null);
     const [loading, setLoading] = useState(false);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [error, setError] = useState("");
 
     const fetchCustomers = () => {
         setLoading(true);
         getCustomers().then(response => {
-            setCustomers(response.data)
+            setCustomers(response.data.customers)
+            setNext(response.data.next)
         }).catch(error => {
             setError((error.response.data.message))
             errorNotification(
@@ -27,6 +30,22 @@ const Customer = () => {
         })
     }
 
+    // the list endpoint is keyset paginated, the next page starts after the last customer shown
+    const fetchMoreCustomers = () => {
+        setLoadingMore(true);
+        getCustomers(next).then(response => {
+            setCustomers(customers => [...customers, ...response.data.customers])
+            setNext(response.data.next)
+        }).catch(error => {
+            errorNotification(
+                error.code,
+                error.response.data.message
+            )
+        }).finally(() => {
+            setLoadingMore(false);
+        })
+    }
+
     useEffect(() => {
         fetchCustomers();
     }, [])
@@ -73,8 +92,8 @@ const Customer = () => {
                 fetchCustomers={fetchCustomers}
             />
             <Wrap justify={"center"} spacing={"30px"}>
-                {customers.map((customer, index) => (
-                    <WrapItem key={index}>
+                {customers.map(customer => (
+                    <WrapItem key={customer.id}>
                         <CardWithImage
                             {...customer}
                             fetchCustomers={fetchCustomers}
@@ -82,6 +101,18 @@ const Customer = () => {
                     </WrapItem>
                 ))}
             </Wrap>
+            {next ? (
+                <Center mt={8}>
+                    <Button
+                        onClick={fetchMoreCustomers}
+                        isLoading={loadingMore}
+                        colorScheme={"teal"}
+                        variant={"outline"}
+                    >
+                        Load more
+                    </Button>
+                </Center>
+            ) : null}
         </SidebarWithHeader>
     )
 }
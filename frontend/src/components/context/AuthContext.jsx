@@ -1,5 +1,5 @@
 import {createContext, useContext, useEffect, useState} from "react";
-import {signIn as performSignIn} from "../../services/client.js";
+import {signIn as performSignIn, signOut as performSignOut, storeTokens} from "../../services/client.js";
 import jwtDecode from "jwt-decode";
 
 const AuthContext = createContext({});
@@ -27,7 +27,7 @@ const AuthProvider = ({children}) => {
         return new Promise((resolve, reject) => {
             performSignIn(usernameAndPassword).then(response => {
                 const jwtToken = response.headers["authorization"];
-                localStorage.setItem("access_token", jwtToken);
+                storeTokens(response.headers);
 
                 const decodedToken = jwtDecode(jwtToken);
 
@@ -43,12 +43,17 @@ const AuthProvider = ({children}) => {
     }
 
     const signOut = () => {
+        if (localStorage.getItem("refresh_token")) {
+            performSignOut().catch(() => {});
+        }
         localStorage.removeItem("access_token");
+        localStorage.removeItem("refresh_token");
         setCustomer(null);
     }
 
+    // the access token is short-lived and refreshed on demand, the session lasts as long as the refresh token
     const isCustomerAuthenticated = () => {
-        const token = localStorage.getItem("access_token");
+        const token = localStorage.getItem("refresh_token") || localStorage.getItem("access_token");
         if (!token) {
             return false;
         }
@@ -24,7 +24,7 @@ import {customerProfilePictureUrl, deleteCustomer} from "../../services/client.j
 import {errorNotification, successNotification} from "../../services/notification.js";
 import UpdateCustomerDrawer from "./UpdateCustomerDrawer.jsx";
 
-export default function CardWithImage({id, name, email, age, gender, fetchCustomers}) {
+export default function CardWithImage({id, name, email, age, gender, profileImage, fetchCustomers}) {
 
     const {isOpen, onOpen, onClose} = useDisclosure()
     const cancelRef = useRef()
@@ -51,7 +51,7 @@ export default function CardWithImage({id, name, email, age, gender, fetchCustom
                 <Flex justify={'center'} mt={-12}>
                     <Avatar
                         size={'xl'}
-                        src={customerProfilePictureUrl(id)}
+                        src={customerProfilePictureUrl(id, profileImage)}
                         alt={'Author'}
                         css={{
                             border: '2px solid white',
@@ -75,6 +75,7 @@ export default function CardWithImage({id, name, email, age, gender, fetchCustom
                         <UpdateCustomerDrawer
                             initialValues={{name, email, age}}
                             customerId={id}
+                            profileImage={profileImage}
                             fetchCustomers={fetchCustomers}
                         />
                     </Stack>
@@ -13,7 +13,7 @@ import UpdateCustomerForm from "./UpdateCustomerForm.jsx";
 
 const CloseIcon = () => "x";
 
-const UpdateCustomerDrawer = ({fetchCustomers, initialValues, customerId}) => {
+const UpdateCustomerDrawer = ({fetchCustomers, initialValues, customerId, profileImage}) => {
 
     const {isOpen, onOpen, onClose} = useDisclosure()
 
@@ -41,6 +41,7 @@ const UpdateCustomerDrawer = ({fetchCustomers, initialValues, customerId}) => {
                         fetchCustomers={fetchCustomers}
                         initialValues={initialValues}
                         customerId={customerId}
+                        profileImage={profileImage}
                     />
                 </DrawerBody>
 
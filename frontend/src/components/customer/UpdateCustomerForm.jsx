@@ -24,6 +24,10 @@ const MyTextInput = ({label, ...props}) => {
 
 const MyDropzone = ({customerId, fetchCustomers}) => {
     const onDrop = useCallback(acceptedFiles => {
+        if (acceptedFiles.length === 0) {
+            errorNotification("Error", "Profile image must be a JPEG, PNG or WebP image")
+            return;
+        }
         const file = new FormData();
         file.append("file", acceptedFiles[0])
 
@@ -36,7 +40,15 @@ const MyDropzone = ({customerId, fetchCustomers}) => {
             }
         )
     }, [])
-    const {getRootProps, getInputProps, isDragActive} = useDropzone({onDrop})
+    const {getRootProps, getInputProps, isDragActive} = useDropzone({
+        onDrop,
+        maxFiles: 1,
+        accept: {
+            "image/jpeg": [".jpg", ".jpeg"],
+            "image/png": [".png"],
+            "image/webp": [".webp"]
+        }
+    })
 
     return (
         <Box {...getRootProps()}
@@ -58,7 +70,7 @@ const MyDropzone = ({customerId, fetchCustomers}) => {
     )
 }
 
-const UpdateCustomerForm = ({fetchCustomers, initialValues, customerId}) => {
+const UpdateCustomerForm = ({fetchCustomers, initialValues, customerId, profileImage}) => {
     return (
         <>
             <VStack spacing={'5'} mb={'5'}>
@@ -66,7 +78,7 @@ const UpdateCustomerForm = ({fetchCustomers, initialValues, customerId}) => {
                     borderRadius={'full'}
                     boxSize={'150px'}
                     objectFit={'cover'}
-                    src={customerProfilePictureUrl(customerId)}
+                    src={customerProfilePictureUrl(customerId, profileImage)}
                 />
                 <MyDropzone
                     customerId={customerId}
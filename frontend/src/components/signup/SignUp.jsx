@@ -20,8 +20,9 @@ const SignUp = () => {
                 <Stack spacing={4} w={'full'} maxW={'md'}>
                     <Heading fontSize={'2xl'}>Register account</Heading>
                     <CreateCustomerForm
-                        onSuccess={(token) => {
+                        onSuccess={(token, refreshToken) => {
                             localStorage.setItem("access_token", token);
+                            localStorage.setItem("refresh_token", refreshToken);
                             setCustomerFromToken();
                             navigate("/dashboard");
                         }}
@@ -6,11 +6,52 @@ const getAuthConfig = () => ({
     }
 })
 
-export const getCustomers = async () => {
+export const storeTokens = (headers) => {
+    localStorage.setItem("access_token", headers["authorization"]);
+    localStorage.setItem("refresh_token", headers["refresh-token"]);
+}
+
+// refresh tokens are single use, so concurrent 401/403 responses share one refresh
+let pendingRefresh = null;
+
+const refreshTokens = () => {
+    if (!pendingRefresh) {
+        pendingRefresh = axios.post(
+            `${import.meta.env.VITE_API_BASE_URL}/api/v1/auth/refresh`,
+            {refreshToken: localStorage.getItem("refresh_token")}
+        ).then(response => {
+            storeTokens(response.headers);
+        }).finally(() => {
+            pendingRefresh = null;
+        });
+    }
+    return pendingRefresh;
+}
+
+axios.interceptors.response.use(response => response, async (error) => {
+    const request = error.config;
+    const status = error.response?.status;
+    if ((status !== 401 && status !== 403)
+        || request._retried
+        || !localStorage.getItem("refresh_token")
+        || request.url.includes("/api/v1/auth/")) {
+        throw error;
+    }
+    request._retried = true;
+    await refreshTokens();
+    request.headers.Authorization = `Bearer ${localStorage.getItem("access_token")}`;
+    return axios(request);
+})
+
+// one page per call, pass the previous page's next cursor to continue after it
+export const getCustomers = async (cursor) => {
     try {
         return await axios.get(
             `${import.meta.env.VITE_API_BASE_URL}/api/v1/customers`,
-            getAuthConfig()
+            {
+                ...getAuthConfig(),
+                params: cursor ? {cursor} : {}
+            }
         )
     } catch (error) {
         throw error;
@@ -63,6 +104,18 @@ export const signIn = async (usernameAndPassword) => {
     }
 }
 
+export const signOut = async () => {
+    try {
+        return await axios.post(
+            `${import.meta.env.VITE_API_BASE_URL}/api/v1/auth/logout`,
+            {refreshToken: localStorage.getItem("refresh_token")},
+            getAuthConfig()
+        )
+    } catch (error) {
+        throw error;
+    }
+}
+
 export const updateCustomerProfileImage = async (customerId, file) => {
     try {
         return await axios.post(
@@ -78,5 +131,7 @@ export const updateCustomerProfileImage = async (customerId, file) => {
     }
 }
 
-export const customerProfilePictureUrl = (customerId) =>
-    `${import.meta.env.VITE_API_BASE_URL}/api/v1/customers/${customerId}/profile-image`;
\ No newline at end of file
+// profileImage is the content-versioned path from the customer, cached by the browser until the image changes;
+// size picks the smallest pre-generated thumbnail that covers it
+export const customerProfilePictureUrl = (customerId, profileImage, size = 256) =>
+    `${import.meta.env.VITE_API_BASE_URL}${profileImage ?? `/api/v1/customers/${customerId}/profile-image`}?size=${size}`;
\ No newline at end of file
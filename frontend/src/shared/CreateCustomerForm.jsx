@@ -78,7 +78,7 @@ const CreateCustomerForm = ({onSuccess}) => {
                                 "Customer saved",
                                 `${customer.name} was successfully saved`
                             )
-                            onSuccess(response.headers["authorization"]);
+                            onSuccess(response.headers["authorization"], response.headers["refresh-token"]);
                         }).catch((error) => {
                         console.log(error)
                         errorNotification(